@@ -7,7 +7,10 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
+import ru.practicum.shareit.authentication.security.PersonDetails;
+import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.service.UserServiceImpl;
+import ru.practicum.shareit.utils.JWTClaims;
 import ru.practicum.shareit.utils.JWTUtil;
 
 import javax.servlet.FilterChain;
@@ -39,10 +42,11 @@ public class JWTFilter extends OncePerRequestFilter {
                         HttpServletResponse.SC_BAD_REQUEST,
                         "Invalid JWT token in Bearer Header"
                 );
+                return;
             } else {
                 try {
-                    String email = jwtUtil.validateTokenAndRetrieveClaim(jwt);
-                    UserDetails userDetails = userService.loadUserByUsername(email);
+                    JWTClaims claims = jwtUtil.validateTokenAndRetrieveClaims(jwt);
+                    UserDetails userDetails = toUserDetails(claims);
                     UsernamePasswordAuthenticationToken authToken =
                             new UsernamePasswordAuthenticationToken(userDetails, userDetails.getPassword(),
                                     userDetails.getAuthorities());
@@ -52,9 +56,24 @@ public class JWTFilter extends OncePerRequestFilter {
                     }
                 } catch (JWTVerificationException e) {
                     httpServletResponse.sendError(HttpServletResponse.SC_BAD_REQUEST, "Invalid JWT token");
+                    return;
                 }
             }
         }
         filterChain.doFilter(httpServletRequest, httpServletResponse);
     }
+
+    /**
+     * Строит principal из claims токена без обращения к базе. Токены, выданные до добавления
+     * идентификатора в claims, по-прежнему загружают пользователя по email.
+     */
+    private UserDetails toUserDetails(JWTClaims claims) {
+        if (claims.getId() == null) {
+            return userService.loadUserByUsername(claims.getEmail());
+        }
+        return new PersonDetails(User.builder()
+                .id(claims.getId())
+                .email(claims.getEmail())
+                .build());
+    }
 }
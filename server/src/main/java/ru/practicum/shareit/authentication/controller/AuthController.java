@@ -6,13 +6,17 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 import ru.practicum.shareit.authentication.dto.AuthenticationDto;
+import ru.practicum.shareit.authentication.security.PersonDetails;
 import ru.practicum.shareit.authentication.service.AuthenticationService;
+import ru.practicum.shareit.authentication.service.LoginRateLimiter;
+import ru.practicum.shareit.authentication.service.PasswordHashingService;
 import ru.practicum.shareit.exception.BadRegistrationException;
 import ru.practicum.shareit.user.mapper.UserMapper;
 import ru.practicum.shareit.user.model.User;
@@ -20,6 +24,7 @@ import ru.practicum.shareit.user.userDto.UserDto;
 import ru.practicum.shareit.utils.JWTUtil;
 import ru.practicum.shareit.utils.UserValidator;
 
+import javax.servlet.http.HttpServletRequest;
 import javax.validation.Valid;
 
 @RestController
@@ -33,6 +38,8 @@ public class AuthController {
     private final AuthenticationService authenticationService;
     private final JWTUtil jwtUtil;
     private final AuthenticationManager authenticationManager;
+    private final PasswordHashingService passwordHashingService;
+    private final LoginRateLimiter loginRateLimiter;
 
     @PostMapping("/registration")
     public String performRegistration(@RequestBody @Valid UserDto userCreateDto,
@@ -48,23 +55,29 @@ public class AuthController {
 
         authenticationService.register(user);
 
-        String token = jwtUtil.generateToken(user.getEmail());
+        String token = jwtUtil.generateToken(user.getId(), user.getEmail());
         log.debug("Пользователь зарегистрирован {} JWTToken выдан", userCreateDto);
         return token;
     }
 
     @PostMapping("/login")
-    public String performLogin(@RequestBody @Valid AuthenticationDto authenticationDto) {
+    public String performLogin(@RequestBody @Valid AuthenticationDto authenticationDto,
+                               HttpServletRequest request) {
+        loginRateLimiter.check(authenticationDto.getEmail(), request.getRemoteAddr());
+
         UsernamePasswordAuthenticationToken authInputToken =
                 new UsernamePasswordAuthenticationToken(authenticationDto.getEmail(), authenticationDto.getPassword());
 
+        Authentication authentication;
         try {
-            authenticationManager.authenticate(authInputToken);
+            authentication = passwordHashingService.execute(() ->
+                    authenticationManager.authenticate(authInputToken));
         } catch (BadCredentialsException e) {
             throw new BadRegistrationException("Incorrect credentials");
         }
 
-        String token = jwtUtil.generateToken(authenticationDto.getEmail());
+        PersonDetails personDetails = (PersonDetails) authentication.getPrincipal();
+        String token = jwtUtil.generateToken(personDetails.getUser().getId(), personDetails.getUsername());
         log.debug("Пользователь прошел аутентификацию, JWTToken получен");
         return token;
     }
@@ -1,23 +1,62 @@
 package ru.practicum.shareit.authentication.service;
 
 import lombok.RequiredArgsConstructor;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.exception.AlreadyExistException;
 import ru.practicum.shareit.user.repository.UserRepository;
 import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.service.RegisteredEmailFilter;
+import ru.practicum.shareit.utils.EmailNormalizer;
+import ru.practicum.shareit.utils.TransactionHooks;
+
+import java.util.Locale;
 
 @Service
 @RequiredArgsConstructor
 public class AuthenticationServiceImpl implements AuthenticationService {
 
+    /**
+     * Общая часть имени индекса уникальности email: ux_users_email в H2, ux_users_email_lower в PostgreSQL
+     */
+    private static final String EMAIL_UNIQUE_INDEX = "ux_users_email";
+
     private final UserRepository userRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHashingService passwordHashingService;
+    private final RegisteredEmailFilter registeredEmailFilter;
 
+    /**
+     * Регистрирует пользователя. Пароль хешируется до обращения к базе, поэтому ожидание пула
+     * хеширования и сам BCrypt не держат соединение: транзакция открывается только на сохранение.
+     * Занятым email считается только нарушение уникального индекса на email, остальные ошибки
+     * целостности пробрасываются как есть.
+     *
+     * @param user новый пользователь
+     */
     @Override
-    @Transactional
     public void register(User user) {
-        user.setPassword(passwordEncoder.encode(user.getPassword()));
-        userRepository.save(user);
+        user.setEmail(EmailNormalizer.normalize(user.getEmail()));
+        user.setPassword(passwordHashingService.encode(user.getPassword()));
+        try {
+            userRepository.saveAndFlush(user);
+        } catch (DataIntegrityViolationException e) {
+            if (isEmailTaken(e)) {
+                throw new AlreadyExistException("Такой пользователь уже зарегистрирован", e);
+            }
+            throw e;
+        }
+        String email = user.getEmail();
+        TransactionHooks.afterCommit(() -> registeredEmailFilter.add(email));
+    }
+
+    private static boolean isEmailTaken(DataIntegrityViolationException e) {
+        for (Throwable cause = e.getCause(); cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConstraintViolationException) {
+                String constraint = ((ConstraintViolationException) cause).getConstraintName();
+                return constraint != null && constraint.toLowerCase(Locale.ROOT).contains(EMAIL_UNIQUE_INDEX);
+            }
+        }
+        return false;
     }
 }
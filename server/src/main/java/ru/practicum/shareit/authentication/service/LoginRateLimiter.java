@@ -0,0 +1,49 @@
+package ru.practicum.shareit.authentication.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.exception.TooManyRequestsException;
+import ru.practicum.shareit.utils.SlidingWindowRateLimiter;
+
+import java.time.Duration;
+import java.util.Locale;
+
+/**
+ * Ограничение попыток входа по аккаунту и по адресу клиента. Проверяется до хеширования пароля,
+ * чтобы перебор паролей не занимал потоки BCrypt.
+ */
+@Slf4j
+@Component
+public class LoginRateLimiter {
+
+    private static final int MAX_KEYS = 100_000;
+
+    private final SlidingWindowRateLimiter byAccount;
+    private final SlidingWindowRateLimiter byClient;
+
+    public LoginRateLimiter(@Value("${shareit.auth.login.account-limit:5}") int accountLimit,
+                            @Value("${shareit.auth.login.client-limit:20}") int clientLimit,
+                            @Value("${shareit.auth.login.window:PT1M}") Duration window) {
+        this.byAccount = new SlidingWindowRateLimiter(accountLimit, window, MAX_KEYS);
+        this.byClient = new SlidingWindowRateLimiter(clientLimit, window, MAX_KEYS);
+    }
+
+    /**
+     * Учитывает попытку входа.
+     *
+     * @param email email из запроса
+     * @param clientAddress адрес клиента
+     * @throws TooManyRequestsException если лимит аккаунта или клиента исчерпан
+     */
+    public void check(String email, String clientAddress) {
+        if (!byClient.tryAcquire(String.valueOf(clientAddress))) {
+            log.debug("Превышен лимит попыток входа с адреса {}", clientAddress);
+            throw new TooManyRequestsException("Слишком много попыток входа, повторите позже");
+        }
+        if (!byAccount.tryAcquire(String.valueOf(email).toLowerCase(Locale.ROOT))) {
+            log.debug("Превышен лимит попыток входа для {}", email);
+            throw new TooManyRequestsException("Слишком много попыток входа, повторите позже");
+        }
+    }
+}
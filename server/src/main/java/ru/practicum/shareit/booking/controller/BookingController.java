@@ -3,8 +3,12 @@ package ru.practicum.shareit.booking.controller;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import ru.practicum.shareit.booking.dto.BookingBatchDto;
+import ru.practicum.shareit.booking.dto.BookingCursor;
+import ru.practicum.shareit.booking.dto.BookingDecisionResultDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.BookingUpdateDto;
 import ru.practicum.shareit.booking.dto.RequestBookingStatus;
@@ -12,6 +16,7 @@ import ru.practicum.shareit.booking.service.BookingService;
 
 import javax.validation.Valid;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping(path = "/bookings")
@@ -19,6 +24,8 @@ import java.util.List;
 @Tag(name = "Booking Controller", description = "Управление бронированиями")
 @Validated
 public class BookingController {
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
     private final BookingService bookingService;
 
     @PostMapping
@@ -34,6 +41,15 @@ public class BookingController {
         return bookingService.updateBooking(bookingId, approved);
     }
 
+    /**
+     * Пакетное подтверждение и отклонение бронирований владельцем. Решения применяются независимо,
+     * для каждого возвращается новый статус или причина отказа.
+     */
+    @PatchMapping("/batch")
+    public List<BookingDecisionResultDto> updateBatch(@Valid @RequestBody BookingBatchDto body) {
+        return bookingService.updateBookings(body.getDecisions());
+    }
+
     @GetMapping("/{bookingId}")
     public BookingDto getById(
             @PathVariable Long bookingId
@@ -41,22 +57,54 @@ public class BookingController {
         return bookingService.getBooking(bookingId);
     }
 
+    /**
+     * Бронирования пользователя. Первая страница запрашивается через from/size, следующие - через
+     * курсор {@code after} из заголовка {@value #NEXT_CURSOR_HEADER} предыдущего ответа.
+     */
     @GetMapping
-    public List<BookingDto> getUserBookings(
+    public ResponseEntity<List<BookingDto>> getUserBookings(
             @RequestParam(defaultValue = "ALL") RequestBookingStatus state,
             @RequestParam(required = false, defaultValue = "0") final Integer from,
-            @RequestParam(required = false, defaultValue = "10") final Integer size
+            @RequestParam(required = false, defaultValue = "10") final Integer size,
+            @RequestParam(required = false) final String after
     ) {
-        int page = from > 0 ? from / size : from;
-        return bookingService.getBookingsByUser(state, PageRequest.of(page, size));
+        List<BookingDto> result = after != null
+                ? bookingService.getBookingsByUser(state, BookingCursor.decode(after), size)
+                : bookingService.getBookingsByUser(state, PageRequest.of(from / size, size));
+        return withNextCursor(result, size);
     }
 
+    /**
+     * Бронирования вещей владельца. В отличие от {@link #getUserBookings} параметр {@code from}
+     * здесь - номер страницы, а не смещение; следующие страницы - через курсор {@code after}.
+     */
     @GetMapping("/owner")
-    public List<BookingDto> getUserItemBookings(
+    public ResponseEntity<List<BookingDto>> getUserItemBookings(
             @RequestParam(defaultValue = "ALL") RequestBookingStatus state,
             @RequestParam(required = false, defaultValue = "0") final Integer from,
-            @RequestParam(required = false, defaultValue = "10") final Integer size
+            @RequestParam(required = false, defaultValue = "10") final Integer size,
+            @RequestParam(required = false) final String after
     ) {
-        return bookingService.getBookingStatusByOwner(state, PageRequest.of(from, size));
+        List<BookingDto> result = after != null
+                ? bookingService.getBookingStatusByOwner(state, BookingCursor.decode(after), size)
+                : bookingService.getBookingStatusByOwner(state, PageRequest.of(from, size));
+        return withNextCursor(result, size);
+    }
+
+    /**
+     * Число бронирований вещей владельца по каждому состоянию
+     */
+    @GetMapping("/owner/summary")
+    public Map<RequestBookingStatus, Long> getOwnerSummary() {
+        return bookingService.getOwnerSummary();
+    }
+
+    private ResponseEntity<List<BookingDto>> withNextCursor(List<BookingDto> result, int size) {
+        if (result.isEmpty() || result.size() < size) {
+            return ResponseEntity.ok(result);
+        }
+        return ResponseEntity.ok()
+                .header(NEXT_CURSOR_HEADER, BookingCursor.of(result.get(result.size() - 1)).encode())
+                .body(result);
     }
 }
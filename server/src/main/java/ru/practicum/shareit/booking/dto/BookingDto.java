@@ -2,6 +2,7 @@ package ru.practicum.shareit.booking.dto;
 
 import lombok.Builder;
 import lombok.Data;
+import ru.practicum.shareit.booking.model.BookingStatus;
 import ru.practicum.shareit.utils.MainDto;
 
 import java.time.LocalDateTime;
@@ -13,7 +14,7 @@ public class BookingDto {
     private Long id;
     private LocalDateTime start;
     private LocalDateTime end;
-    private String status;
+    private BookingStatus status;
     private MainDto booker;
     private MainDto item;
 }
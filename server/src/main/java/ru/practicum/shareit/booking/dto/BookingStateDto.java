@@ -0,0 +1,23 @@
+package ru.practicum.shareit.booking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import ru.practicum.shareit.booking.model.BookingStatus;
+
+import java.time.LocalDateTime;
+
+/**
+ * Состояние бронирования, достаточное для проверки владельца и перехода статуса без загрузки сущностей
+ */
+@Getter
+@AllArgsConstructor
+public class BookingStateDto {
+
+    private Long id;
+    private Long itemId;
+    private Long ownerId;
+    private BookingStatus status;
+    private Long version;
+    private LocalDateTime start;
+    private LocalDateTime end;
+}
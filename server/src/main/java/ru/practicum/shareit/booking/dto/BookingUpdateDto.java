@@ -2,6 +2,7 @@ package ru.practicum.shareit.booking.dto;
 
 import lombok.Builder;
 import lombok.Data;
+import ru.practicum.shareit.booking.model.BookingStatus;
 
 import javax.validation.constraints.FutureOrPresent;
 import javax.validation.constraints.NotNull;
@@ -22,5 +23,5 @@ public class BookingUpdateDto {
     @FutureOrPresent
     private final LocalDateTime end;
 
-    private String status;
+    private BookingStatus status;
 }
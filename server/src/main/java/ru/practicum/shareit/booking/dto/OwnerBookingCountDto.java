@@ -0,0 +1,18 @@
+package ru.practicum.shareit.booking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import ru.practicum.shareit.booking.model.BookingStatus;
+
+/**
+ * Число бронирований вещей владельца в одном статусе и сколько из них уже завершились
+ */
+@Getter
+@AllArgsConstructor
+public class OwnerBookingCountDto {
+
+    private Long ownerId;
+    private BookingStatus status;
+    private Long total;
+    private Long past;
+}
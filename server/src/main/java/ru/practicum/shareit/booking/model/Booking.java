@@ -1,7 +1,6 @@
 package ru.practicum.shareit.booking.model;
 
 import lombok.*;
-import org.springframework.data.annotation.Transient;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.user.model.User;
 
@@ -35,7 +34,11 @@ public class Booking {
     @JoinColumn(name = "booker_id", nullable = false)
     private User booker;
 
-    @Transient
-    @Column(name = "status")
-    private String status;
+    @Convert(converter = BookingStatusConverter.class)
+    @Column(name = "status", length = 1)
+    private BookingStatus status;
+
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
 }
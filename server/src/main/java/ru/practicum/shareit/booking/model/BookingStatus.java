@@ -1,8 +1,47 @@
 package ru.practicum.shareit.booking.model;
 
+/**
+ * Статус бронирования. В базе хранится однобуквенным кодом, см. {@link BookingStatusConverter}.
+ */
 public enum BookingStatus {
-    WAITING,
-    APPROVED,
-    REJECTED,
-    CANCELED
+    WAITING('W'),
+    APPROVED('A'),
+    REJECTED('R'),
+    CANCELED('C');
+
+    private final char code;
+
+    BookingStatus(char code) {
+        this.code = code;
+    }
+
+    public char getCode() {
+        return code;
+    }
+
+    public static BookingStatus fromCode(char code) {
+        switch (code) {
+            case 'W':
+                return WAITING;
+            case 'A':
+                return APPROVED;
+            case 'R':
+                return REJECTED;
+            case 'C':
+                return CANCELED;
+            default:
+                throw new IllegalArgumentException("Неизвестный код статуса бронирования: " + code);
+        }
+    }
+
+    /**
+     * Допустимые переходы статуса бронирования: решение принимается только по ожидающему
+     * бронированию, подтвержденное, отклоненное и отмененное бронирования не меняются.
+     *
+     * @param target новый статус
+     * @return true, если переход из текущего статуса в target разрешен
+     */
+    public boolean canTransitionTo(BookingStatus target) {
+        return this == WAITING && target != WAITING;
+    }
 }
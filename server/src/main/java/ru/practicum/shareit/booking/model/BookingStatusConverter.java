@@ -0,0 +1,21 @@
+package ru.practicum.shareit.booking.model;
+
+import javax.persistence.AttributeConverter;
+import javax.persistence.Converter;
+
+/**
+ * Хранит статус бронирования в колонке CHAR(1) вместо полного имени
+ */
+@Converter
+public class BookingStatusConverter implements AttributeConverter<BookingStatus, Character> {
+
+    @Override
+    public Character convertToDatabaseColumn(BookingStatus status) {
+        return status == null ? null : status.getCode();
+    }
+
+    @Override
+    public BookingStatus convertToEntityAttribute(Character code) {
+        return code == null ? null : BookingStatus.fromCode(code);
+    }
+}
@@ -0,0 +1,67 @@
+package ru.practicum.shareit.booking.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import ru.practicum.shareit.booking.dto.BookingStateDto;
+import ru.practicum.shareit.booking.model.BookingStatus;
+
+import java.util.List;
+
+/**
+ * Пакетные переходы статусов бронирований через JDBC batch. Каждая строка меняется тем же
+ * условным update, что и при одиночном решении: только если статус и версия не изменились.
+ */
+@Repository
+@RequiredArgsConstructor
+public class BookingBatchRepository {
+
+    private static final String REJECT_SQL = "update bookings set status = ?, version = version + 1 "
+            + "where id = ? and status = ? and version = ?";
+
+    private static final String APPROVE_SQL = REJECT_SQL
+            + " and not exists (select 1 from bookings o where o.item_id = ? and o.status = ? and o.id <> ? "
+            + "and o.start_date < ? and o.end_date > ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * @return число измененных строк для каждого бронирования, 0 - бронирование уже изменено
+     */
+    public int[] reject(List<BookingStateDto> bookings) {
+        if (bookings.isEmpty()) {
+            return new int[0];
+        }
+        return jdbcTemplate.batchUpdate(REJECT_SQL, bookings, bookings.size(), (ps, booking) -> {
+            ps.setString(1, code(BookingStatus.REJECTED));
+            ps.setLong(2, booking.getId());
+            ps.setString(3, code(booking.getStatus()));
+            ps.setLong(4, booking.getVersion());
+        })[0];
+    }
+
+    /**
+     * @return число измененных строк для каждого бронирования, 0 - бронирование уже изменено
+     * или вещь подтверждена другому пользователю на пересекающийся период
+     */
+    public int[] approve(List<BookingStateDto> bookings) {
+        if (bookings.isEmpty()) {
+            return new int[0];
+        }
+        return jdbcTemplate.batchUpdate(APPROVE_SQL, bookings, bookings.size(), (ps, booking) -> {
+            ps.setString(1, code(BookingStatus.APPROVED));
+            ps.setLong(2, booking.getId());
+            ps.setString(3, code(booking.getStatus()));
+            ps.setLong(4, booking.getVersion());
+            ps.setLong(5, booking.getItemId());
+            ps.setString(6, code(BookingStatus.APPROVED));
+            ps.setLong(7, booking.getId());
+            ps.setObject(8, booking.getEnd());
+            ps.setObject(9, booking.getStart());
+        })[0];
+    }
+
+    private static String code(BookingStatus status) {
+        return String.valueOf(status.getCode());
+    }
+}
@@ -1,61 +1,256 @@
 package ru.practicum.shareit.booking.repository;
 
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import ru.practicum.shareit.booking.dto.BookingStateDto;
+import ru.practicum.shareit.booking.dto.OwnerBookingCountDto;
 import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingStatus;
 
+import javax.persistence.LockModeType;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
+/**
+ * Списки бронирований для ответа API загружают вещь тем же запросом ({@link EntityGraph}):
+ * {@link ru.practicum.shareit.booking.mapper.BookingMapper} читает ее название, и без этого
+ * каждая строка страницы догружала бы вещь отдельным запросом.
+ */
 @Repository
 public interface BookingRepository extends JpaRepository<Booking, Long> {
 
+    @Query("select new ru.practicum.shareit.booking.dto.BookingStateDto(b.id, i.id, i.owner.id, b.status, "
+            + "b.version, b.start, b.end) from Booking b join b.item i where b.id in ?1")
+    List<BookingStateDto> findStatesByIdIn(Collection<Long> ids);
+
+    /**
+     * Бронирования, у которых впереди есть граница жизненного цикла: ожидающие решения
+     * и подтвержденные, которые еще не завершились
+     */
+    @Query("select new ru.practicum.shareit.booking.dto.BookingStateDto(b.id, i.id, i.owner.id, b.status, "
+            + "b.version, b.start, b.end) from Booking b join b.item i "
+            + "where b.status = :waiting or (b.status = :approved and b.end > :now)")
+    List<BookingStateDto> findUpcomingBoundaries(@Param("waiting") BookingStatus waiting,
+                                                 @Param("approved") BookingStatus approved,
+                                                 @Param("now") LocalDateTime now);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select b from Booking b where b.id in :ids and b.status = :status and b.start <= :now")
+    List<Booking> findStartedForUpdate(@Param("ids") Collection<Long> ids, @Param("status") BookingStatus status,
+                                       @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("update Booking b set b.status = :target, b.version = b.version + 1 where b.id in :ids")
+    int updateStatusByIdIn(@Param("ids") Collection<Long> ids, @Param("target") BookingStatus target);
+
+    /*
+     * Сводка бронирований владельцев: число бронирований по статусам и незавершившиеся
+     * бронирования, по которым счетчики CURRENT/FUTURE/PAST сдвигаются со временем.
+     */
+
+    @Query("select new ru.practicum.shareit.booking.dto.OwnerBookingCountDto(i.owner.id, b.status, count(b), "
+            + "sum(case when b.end < :now then 1L else 0L end)) from Booking b join b.item i "
+            + "where i.owner.id in :ownerIds group by i.owner.id, b.status")
+    List<OwnerBookingCountDto> countByOwnerIds(@Param("ownerIds") Collection<Long> ownerIds,
+                                               @Param("now") LocalDateTime now);
+
+    @Query("select new ru.practicum.shareit.booking.dto.BookingStateDto(b.id, i.id, i.owner.id, b.status, "
+            + "b.version, b.start, b.end) from Booking b join b.item i "
+            + "where i.owner.id in :ownerIds and b.end >= :now")
+    List<BookingStateDto> findUnfinishedByOwnerIds(@Param("ownerIds") Collection<Long> ownerIds,
+                                                   @Param("now") LocalDateTime now);
+
+    @Query("select b from Booking b join fetch b.item where b.id = ?1")
+    Optional<Booking> findWithItemById(Long id);
+
+    /**
+     * Меняет статус, только если бронирование не изменилось с момента чтения
+     *
+     * @return число измененных строк: 0, если статус или версия уже другие
+     */
+    @Modifying
+    @Query("update Booking b set b.status = :target, b.version = b.version + 1 "
+            + "where b.id = :id and b.status = :expected and b.version = :version")
+    int updateStatusIfUnchanged(@Param("id") Long id, @Param("expected") BookingStatus expected,
+                                @Param("target") BookingStatus target, @Param("version") Long version);
+
+    /**
+     * Подтверждает бронирование, если оно не изменилось с момента чтения и вещь не занята
+     * другим подтвержденным бронированием на пересекающийся период
+     *
+     * @return число измененных строк
+     */
     @Modifying
-    @Query("update Booking b set b.status = ?2 where b.id = ?1")
-    void updateBookingStatusById(Long id, String status);
+    @Query("update Booking b set b.status = :approved, b.version = b.version + 1 "
+            + "where b.id = :id and b.status = :expected and b.version = :version "
+            + "and not exists (select o.id from Booking o where o.item.id = :itemId and o.status = :approved "
+            + "and o.id <> :id and o.start < :end and o.end > :start)")
+    int approveIfUnchanged(@Param("id") Long id, @Param("expected") BookingStatus expected,
+                           @Param("approved") BookingStatus approved, @Param("version") Long version,
+                           @Param("itemId") Long itemId, @Param("start") LocalDateTime start,
+                           @Param("end") LocalDateTime end);
 
-    List<Booking> findBookingByBookerIdOrderByStartDesc(Long bookerId, Pageable pageable);
+    @EntityGraph(attributePaths = "item")
+    List<Booking> findBookingByBookerIdOrderByStartDescIdDesc(Long bookerId, Pageable pageable);
 
-    List<Booking> findBookingByBookerIdAndStatusOrderByStartDesc(Long bookerId, String status,
-                                                                 Pageable pageable);
+    @EntityGraph(attributePaths = "item")
+    List<Booking> findBookingByBookerIdAndStatusOrderByStartDescIdDesc(Long bookerId, BookingStatus status,
+                                                                       Pageable pageable);
 
+    @EntityGraph(attributePaths = "item")
     @Query("select b from Booking b where b.booker.id = ?1 "
             + "and current_timestamp between b.start and b.end "
-            + "order by b.start DESC")
+            + "order by b.start desc, b.id desc")
     List<Booking> findCurrentBookingByBookerId(Long bookerId, Pageable pageable);
 
+    @EntityGraph(attributePaths = "item")
     @Query("select b from Booking b where b.booker.id = ?1 "
             + "and current_timestamp > b.end "
-            + "order by b.start DESC")
+            + "order by b.start desc, b.id desc")
     List<Booking> findPastBookingByBookerId(Long bookerId, Pageable pageable);
 
+    @EntityGraph(attributePaths = "item")
     @Query("select b from Booking b where b.booker.id = ?1 "
             + "and current_timestamp < b.start "
-            + "order by b.start DESC")
+            + "order by b.start desc, b.id desc")
     List<Booking> findFutureBookingByBookerId(Long bookerId, Pageable pageable);
 
-    @Query("select (count(b) > 0) from Booking b where b.booker.id = ?1 and b.status = ?2 and b.end < current_timestamp")
-    boolean existsBookingByBookerIdAndStatus(Long bookerId, String status);
+    @Query("select b.end from Booking b where b.booker.id = :bookerId and b.item.id = :itemId "
+            + "and b.status = :status order by b.end")
+    List<LocalDateTime> findEarliestEnd(@Param("bookerId") Long bookerId, @Param("itemId") Long itemId,
+                                        @Param("status") BookingStatus status, Pageable pageable);
+
+    boolean existsByItemIdAndBookerId(Long itemId, Long bookerId);
+
+    @Query("select b from Booking b where b.item.id = :itemId and b.status = :status and b.end > :now "
+            + "order by b.end, b.id")
+    List<Booking> findNextByItemId(@Param("itemId") Long itemId, @Param("status") BookingStatus status,
+                                   @Param("now") LocalDateTime now, Pageable pageable);
+
+    @Query("select b from Booking b where b.item.id = :itemId and b.status = :status and b.end < :now "
+            + "order by b.start desc, b.id desc")
+    List<Booking> findLastByItemId(@Param("itemId") Long itemId, @Param("status") BookingStatus status,
+                                   @Param("now") LocalDateTime now, Pageable pageable);
 
-    List<Booking> findBookingsByItemId(Long itemId);
+    @Query("select case when count(b) > 0 then true else false end from Booking b "
+            + "where b.item.id = :itemId and b.status in :statuses and b.start < :end and b.end > :start")
+    boolean existsOverlapping(@Param("itemId") Long itemId, @Param("statuses") Collection<BookingStatus> statuses,
+                              @Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
 
-    List<Booking> findBookingsByItem_OwnerIdAndStatusOrderByStartDesc(Long ownerId, String status,
-                                                                      Pageable pageable);
+    @Query("select b from Booking b where b.item.id = ?1 and b.status in ?2 and b.end > ?3")
+    List<Booking> findActiveBookingsByItemId(Long itemId, Collection<BookingStatus> statuses, LocalDateTime now);
 
-    List<Booking> findBookingsByItem_OwnerIdOrderByStartDesc(Long ownerId, Pageable pageable);
+    @EntityGraph(attributePaths = "item")
+    List<Booking> findBookingsByItem_OwnerIdAndStatusOrderByStartDescIdDesc(Long ownerId, BookingStatus status,
+                                                                            Pageable pageable);
 
-    List<Booking> findBookingsByItem_OwnerIdAndStartAfterOrderByStartDesc(Long ownerId,
-                                                                          LocalDateTime start, Pageable pageable);
+    @EntityGraph(attributePaths = "item")
+    List<Booking> findBookingsByItem_OwnerIdOrderByStartDescIdDesc(Long ownerId, Pageable pageable);
 
-    List<Booking> findBookingsByItem_OwnerIdAndEndBeforeOrderByStartDesc(Long ownerId,
-                                                                         LocalDateTime end, Pageable pageable);
+    @EntityGraph(attributePaths = "item")
+    List<Booking> findBookingsByItem_OwnerIdAndStartAfterOrderByStartDescIdDesc(Long ownerId,
+                                                                                LocalDateTime start, Pageable pageable);
 
+    @EntityGraph(attributePaths = "item")
+    List<Booking> findBookingsByItem_OwnerIdAndEndBeforeOrderByStartDescIdDesc(Long ownerId,
+                                                                               LocalDateTime end, Pageable pageable);
+
+    @EntityGraph(attributePaths = "item")
     @Query("select b from Booking b where b.item.owner.id = ?1 "
             + "and current_timestamp between b.start and b.end "
-            + "order by b.start DESC")
+            + "order by b.start desc, b.id desc")
     List<Booking> findCurrentBookingByOwnerId(Long ownerId, Pageable pageable);
-}
 
+    /*
+     * Постраничный вывод по курсору (start, id): следующая страница начинается строго после
+     * последнего бронирования предыдущей, поэтому база не пропускает строки через OFFSET.
+     */
+
+    @EntityGraph(attributePaths = "item")
+    @Query("select b from Booking b where b.booker.id = :userId "
+            + "and (b.start < :start or (b.start = :start and b.id < :id)) "
+            + "order by b.start desc, b.id desc")
+    List<Booking> findBookerPageAfter(@Param("userId") Long bookerId, @Param("start") LocalDateTime start,
+                                      @Param("id") Long id, Pageable pageable);
+
+    @EntityGraph(attributePaths = "item")
+    @Query("select b from Booking b where b.booker.id = :userId and b.status = :status "
+            + "and (b.start < :start or (b.start = :start and b.id < :id)) "
+            + "order by b.start desc, b.id desc")
+    List<Booking> findBookerPageByStatusAfter(@Param("userId") Long bookerId, @Param("status") BookingStatus status,
+                                              @Param("start") LocalDateTime start, @Param("id") Long id,
+                                              Pageable pageable);
+
+    @EntityGraph(attributePaths = "item")
+    @Query("select b from Booking b where b.booker.id = :userId "
+            + "and b.start <= :now and b.end >= :now "
+            + "and (b.start < :start or (b.start = :start and b.id < :id)) "
+            + "order by b.start desc, b.id desc")
+    List<Booking> findBookerCurrentPageAfter(@Param("userId") Long bookerId, @Param("now") LocalDateTime now,
+                                             @Param("start") LocalDateTime start, @Param("id") Long id,
+                                             Pageable pageable);
+
+    @EntityGraph(attributePaths = "item")
+    @Query("select b from Booking b where b.booker.id = :userId and b.end < :now "
+            + "and (b.start < :start or (b.start = :start and b.id < :id)) "
+            + "order by b.start desc, b.id desc")
+    List<Booking> findBookerPastPageAfter(@Param("userId") Long bookerId, @Param("now") LocalDateTime now,
+                                          @Param("start") LocalDateTime start, @Param("id") Long id,
+                                          Pageable pageable);
+
+    @EntityGraph(attributePaths = "item")
+    @Query("select b from Booking b where b.booker.id = :userId and b.start > :now "
+            + "and (b.start < :start or (b.start = :start and b.id < :id)) "
+            + "order by b.start desc, b.id desc")
+    List<Booking> findBookerFuturePageAfter(@Param("userId") Long bookerId, @Param("now") LocalDateTime now,
+                                            @Param("start") LocalDateTime start, @Param("id") Long id,
+                                            Pageable pageable);
+
+    @EntityGraph(attributePaths = "item")
+    @Query("select b from Booking b where b.item.owner.id = :userId "
+            + "and (b.start < :start or (b.start = :start and b.id < :id)) "
+            + "order by b.start desc, b.id desc")
+    List<Booking> findOwnerPageAfter(@Param("userId") Long ownerId, @Param("start") LocalDateTime start,
+                                     @Param("id") Long id, Pageable pageable);
+
+    @EntityGraph(attributePaths = "item")
+    @Query("select b from Booking b where b.item.owner.id = :userId and b.status = :status "
+            + "and (b.start < :start or (b.start = :start and b.id < :id)) "
+            + "order by b.start desc, b.id desc")
+    List<Booking> findOwnerPageByStatusAfter(@Param("userId") Long ownerId, @Param("status") BookingStatus status,
+                                             @Param("start") LocalDateTime start, @Param("id") Long id,
+                                             Pageable pageable);
+
+    @EntityGraph(attributePaths = "item")
+    @Query("select b from Booking b where b.item.owner.id = :userId "
+            + "and b.start <= :now and b.end >= :now "
+            + "and (b.start < :start or (b.start = :start and b.id < :id)) "
+            + "order by b.start desc, b.id desc")
+    List<Booking> findOwnerCurrentPageAfter(@Param("userId") Long ownerId, @Param("now") LocalDateTime now,
+                                            @Param("start") LocalDateTime start, @Param("id") Long id,
+                                            Pageable pageable);
+
+    @EntityGraph(attributePaths = "item")
+    @Query("select b from Booking b where b.item.owner.id = :userId and b.end < :now "
+            + "and (b.start < :start or (b.start = :start and b.id < :id)) "
+            + "order by b.start desc, b.id desc")
+    List<Booking> findOwnerPastPageAfter(@Param("userId") Long ownerId, @Param("now") LocalDateTime now,
+                                         @Param("start") LocalDateTime start, @Param("id") Long id,
+                                         Pageable pageable);
+
+    @EntityGraph(attributePaths = "item")
+    @Query("select b from Booking b where b.item.owner.id = :userId and b.start > :now "
+            + "and (b.start < :start or (b.start = :start and b.id < :id)) "
+            + "order by b.start desc, b.id desc")
+    List<Booking> findOwnerFuturePageAfter(@Param("userId") Long ownerId, @Param("now") LocalDateTime now,
+                                           @Param("start") LocalDateTime start, @Param("id") Long id,
+                                           Pageable pageable);
+}
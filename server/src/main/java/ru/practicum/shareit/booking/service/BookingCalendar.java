@@ -0,0 +1,231 @@
+package ru.practicum.shareit.booking.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Календарь занятости вещей: для каждой вещи хранит интервалы [start, end) ожидающих и подтвержденных
+ * бронирований и построенные по ним непересекающиеся занятые диапазоны, упорядоченные по началу.
+ * Календарь вещи загружается из базы при первом обращении, дальше пересечение проверяется по диапазонам
+ * за O(log n) без запроса к базе. Пересекающиеся бронирования, сохраненные до появления календаря,
+ * сливаются в один диапазон, а освобождение бронирования пересобирает только его диапазон.
+ * <p>
+ * Календарь хранится в памяти процесса и обновляется только записями этого же процесса, поэтому
+ * решает занятость вещи лишь при одном экземпляре приложения. При нескольких экземплярах
+ * (shareit.booking.admission.advisory-lock=true) создание бронирования проверяет пересечение по базе
+ * под advisory lock вещи и перед резервированием загружает календарь вещи заново через
+ * {@link #invalidate(Long)}; подтверждение всегда проверяется условным update в базе.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class BookingCalendar {
+
+    private static final List<BookingStatus> ACTIVE_STATUSES =
+            List.of(BookingStatus.WAITING, BookingStatus.APPROVED);
+
+    private final BookingRepository bookingRepository;
+
+    private final ConcurrentMap<Long, Slots> calendars = new ConcurrentHashMap<>();
+
+    /**
+     * Занимает интервал в календаре вещи, если он не пересекается с уже занятыми.
+     *
+     * @param itemId идентификатор вещи
+     * @param start начало бронирования
+     * @param end окончание бронирования
+     * @return true, если интервал свободен и занят, false - если пересекается с другим бронированием
+     */
+    public boolean reserve(Long itemId, LocalDateTime start, LocalDateTime end) {
+        while (true) {
+            Slots slots = calendars.computeIfAbsent(itemId, id -> new Slots());
+            synchronized (slots) {
+                // календарь мог быть выгружен между получением из map и захватом монитора
+                if (!slots.evicted) {
+                    return reserveLocked(itemId, slots, start, end);
+                }
+            }
+        }
+    }
+
+    private boolean reserveLocked(Long itemId, Slots slots, LocalDateTime start, LocalDateTime end) {
+        if (!slots.loaded) {
+            load(itemId, slots);
+        }
+        slots.pruneEndedBefore(LocalDateTime.now());
+        if (slots.overlaps(start, end)) {
+            log.debug("Интервал {} - {} вещи с id = {} уже занят", start, end, itemId);
+            return false;
+        }
+        slots.add(start, end);
+        return true;
+    }
+
+    /**
+     * Быстрая проверка без загрузки календаря: отвечает только по уже загруженному календарю вещи.
+     * Годится только при одном экземпляре приложения, см. описание класса.
+     *
+     * @param itemId идентификатор вещи
+     * @param start начало бронирования
+     * @param end окончание бронирования
+     * @return true, если интервал точно пересекается с занятым, false - если свободен или календарь не загружен
+     */
+    public boolean isTaken(Long itemId, LocalDateTime start, LocalDateTime end) {
+        Slots slots = calendars.get(itemId);
+        if (slots == null) {
+            return false;
+        }
+        synchronized (slots) {
+            return slots.loaded && slots.overlaps(start, end);
+        }
+    }
+
+    /**
+     * Освобождает интервал, занятый бронированием, которое отклонено или не было сохранено.
+     *
+     * @param itemId идентификатор вещи
+     * @param start начало бронирования
+     * @param end окончание бронирования
+     */
+    public void release(Long itemId, LocalDateTime start, LocalDateTime end) {
+        Slots slots = calendars.get(itemId);
+        if (slots == null) {
+            return;
+        }
+        synchronized (slots) {
+            slots.remove(start, end);
+        }
+    }
+
+    /**
+     * Выгружает календарь вещи: следующее обращение загрузит его из базы заново.
+     *
+     * @param itemId идентификатор вещи
+     */
+    public void invalidate(Long itemId) {
+        Slots slots = calendars.get(itemId);
+        if (slots == null) {
+            return;
+        }
+        synchronized (slots) {
+            slots.evicted = true;
+            calendars.remove(itemId, slots);
+        }
+    }
+
+    /**
+     * Удаляет из календаря вещи завершившиеся интервалы, а пустой календарь выгружает из памяти.
+     *
+     * @param itemId идентификатор вещи
+     * @param now текущее время
+     */
+    public void pruneEnded(Long itemId, LocalDateTime now) {
+        Slots slots = calendars.get(itemId);
+        if (slots == null) {
+            return;
+        }
+        synchronized (slots) {
+            slots.pruneEndedBefore(now);
+            if (slots.ranges.isEmpty()) {
+                slots.evicted = true;
+                calendars.remove(itemId, slots);
+            }
+        }
+    }
+
+    private void load(Long itemId, Slots slots) {
+        List<Booking> bookings = bookingRepository.findActiveBookingsByItemId(itemId, ACTIVE_STATUSES,
+                LocalDateTime.now());
+        for (Booking booking : bookings) {
+            slots.add(booking.getStart(), booking.getEnd());
+        }
+        slots.loaded = true;
+        log.debug("Календарь вещи с id = {} загружен, интервалов: {}", itemId, bookings.size());
+    }
+
+    private static final class Slots {
+
+        // занятые диапазоны: начало -> окончание, диапазоны не пересекаются
+        private final TreeMap<LocalDateTime, LocalDateTime> ranges = new TreeMap<>();
+
+        // интервалы бронирований: начало -> окончания бронирований с этим началом
+        private final TreeMap<LocalDateTime, List<LocalDateTime>> bookings = new TreeMap<>();
+
+        private boolean loaded;
+
+        private boolean evicted;
+
+        private boolean overlaps(LocalDateTime start, LocalDateTime end) {
+            Map.Entry<LocalDateTime, LocalDateTime> before = ranges.floorEntry(start);
+            if (before != null && before.getValue().isAfter(start)) {
+                return true;
+            }
+            LocalDateTime next = ranges.ceilingKey(start);
+            return next != null && next.isBefore(end);
+        }
+
+        private void add(LocalDateTime start, LocalDateTime end) {
+            bookings.computeIfAbsent(start, key -> new ArrayList<>()).add(end);
+            merge(start, end);
+        }
+
+        private void remove(LocalDateTime start, LocalDateTime end) {
+            List<LocalDateTime> ends = bookings.get(start);
+            if (ends == null || !ends.remove(end)) {
+                return;
+            }
+            if (ends.isEmpty()) {
+                bookings.remove(start);
+            }
+            Map.Entry<LocalDateTime, LocalDateTime> range = ranges.floorEntry(start);
+            ranges.remove(range.getKey());
+            bookings.subMap(range.getKey(), true, range.getValue(), false)
+                    .forEach((from, tos) -> tos.forEach(to -> merge(from, to)));
+        }
+
+        /**
+         * Добавляет интервал к занятым диапазонам, сливая его с пересекающимися
+         */
+        private void merge(LocalDateTime start, LocalDateTime end) {
+            Map.Entry<LocalDateTime, LocalDateTime> before = ranges.floorEntry(start);
+            if (before != null && before.getValue().isAfter(start)) {
+                start = before.getKey();
+                end = before.getValue().isAfter(end) ? before.getValue() : end;
+                ranges.remove(before.getKey());
+            }
+            Map.Entry<LocalDateTime, LocalDateTime> next = ranges.ceilingEntry(start);
+            while (next != null && next.getKey().isBefore(end)) {
+                end = next.getValue().isAfter(end) ? next.getValue() : end;
+                ranges.remove(next.getKey());
+                next = ranges.ceilingEntry(start);
+            }
+            ranges.put(start, end);
+        }
+
+        private void pruneEndedBefore(LocalDateTime now) {
+            Map.Entry<LocalDateTime, LocalDateTime> first = ranges.firstEntry();
+            while (first != null && !first.getValue().isAfter(now)) {
+                ranges.pollFirstEntry();
+                first = ranges.firstEntry();
+            }
+            // интервалы бронирований, начавшиеся до первого оставшегося диапазона, лежали в удаленных
+            if (first == null) {
+                bookings.clear();
+            } else {
+                bookings.headMap(first.getKey()).clear();
+            }
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package ru.practicum.shareit.booking.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.booking.dto.BookingStateDto;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.utils.HierarchicalTimingWheel;
+import ru.practicum.shareit.utils.TransactionHooks;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Переводит бронирования по границам их жизненного цикла без опроса всей таблицы bookings.
+ * Границы хранятся в иерархическом колесе таймеров: ожидающее бронирование, не получившее
+ * решения к началу, отменяется, а по окончании подтвержденного бронирования его интервал
+ * выгружается из календаря вещи. Колесо заполняется при старте и дополняется при создании
+ * и подтверждении бронирований. Наступившие переходы применяются периодически пачками.
+ */
+@Slf4j
+@Component
+public class BookingLifecycleEngine {
+
+    private static final int CHUNK_SIZE = 1000;
+
+    private final BookingRepository bookingRepository;
+    private final BookingCalendar bookingCalendar;
+    private final OwnerBookingCounters ownerBookingCounters;
+    private final ItemBookingPointers itemBookingPointers;
+    private final TransactionTemplate transactionTemplate;
+    private final HierarchicalTimingWheel<Boundary> wheel;
+
+    public BookingLifecycleEngine(BookingRepository bookingRepository,
+                                  BookingCalendar bookingCalendar,
+                                  OwnerBookingCounters ownerBookingCounters,
+                                  ItemBookingPointers itemBookingPointers,
+                                  PlatformTransactionManager transactionManager,
+                                  @Value("${shareit.booking.lifecycle.tick-ms:1000}") long tickMillis,
+                                  @Value("${shareit.booking.lifecycle.wheel-size:64}") int wheelSize) {
+        this.bookingRepository = bookingRepository;
+        this.bookingCalendar = bookingCalendar;
+        this.ownerBookingCounters = ownerBookingCounters;
+        this.itemBookingPointers = itemBookingPointers;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.wheel = new HierarchicalTimingWheel<>(tickMillis, wheelSize, toMillis(LocalDateTime.now()));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        List<BookingStateDto> bookings = transactionTemplate.execute(status ->
+                bookingRepository.findUpcomingBoundaries(BookingStatus.WAITING,
+                        BookingStatus.APPROVED, LocalDateTime.now()));
+        for (BookingStateDto booking : bookings) {
+            if (booking.getStatus() == BookingStatus.WAITING) {
+                scheduleExpiry(booking.getId(), booking.getOwnerId(), booking.getStart());
+            } else {
+                scheduleEnd(booking.getItemId(), booking.getEnd());
+            }
+        }
+        LocalDateTime now = LocalDateTime.now();
+        List<Long> staleItemIds = transactionTemplate.execute(status -> itemBookingPointers.findStale(now));
+        staleItemIds.forEach(itemId -> refreshPointers(itemId, now));
+        log.debug("Границы бронирований загружены, запланировано: {}, пересчитано ссылок вещей: {}",
+                wheel.size(), staleItemIds.size());
+    }
+
+    /**
+     * Планирует отмену бронирования, если к началу оно останется без решения владельца
+     */
+    public void scheduleExpiry(Long bookingId, Long ownerId, LocalDateTime start) {
+        wheel.schedule(toMillis(start), new Boundary(Boundary.Type.EXPIRE, bookingId, null, ownerId));
+    }
+
+    /**
+     * Планирует выгрузку завершившегося подтвержденного бронирования из календаря вещи
+     * и пересчет ссылок вещи на последнее и следующее бронирование
+     */
+    public void scheduleEnd(Long itemId, LocalDateTime end) {
+        wheel.schedule(toMillis(end), new Boundary(Boundary.Type.END, null, itemId, null));
+    }
+
+    @Scheduled(fixedDelayString = "${shareit.booking.lifecycle.interval-ms:5000}")
+    public void tick() {
+        advance(LocalDateTime.now());
+    }
+
+    /**
+     * Применяет все переходы, срок которых наступил к моменту now
+     *
+     * @param now текущее время
+     */
+    public void advance(LocalDateTime now) {
+        List<Boundary> due = wheel.advance(toMillis(now));
+        if (due.isEmpty()) {
+            return;
+        }
+        List<Boundary> expiries = new ArrayList<>();
+        Set<Long> endedItemIds = new LinkedHashSet<>();
+        for (Boundary boundary : due) {
+            if (boundary.type == Boundary.Type.EXPIRE) {
+                expiries.add(boundary);
+            } else {
+                bookingCalendar.pruneEnded(boundary.itemId, now);
+                endedItemIds.add(boundary.itemId);
+            }
+        }
+        endedItemIds.forEach(itemId -> refreshPointers(itemId, now));
+        for (int from = 0; from < expiries.size(); from += CHUNK_SIZE) {
+            expire(expiries.subList(from, Math.min(from + CHUNK_SIZE, expiries.size())), now);
+        }
+        log.debug("Обработано границ бронирований: {}, отмен по истечении: {}", due.size(), expiries.size());
+    }
+
+    /**
+     * Отменяет пачку ожидающих бронирований одним update. Бронирования, по которым владелец
+     * уже принял решение, блокировка и условие по статусу отсеивают.
+     */
+    private void expire(List<Boundary> expiries, LocalDateTime now) {
+        Map<Long, Long> ownerIds = expiries.stream()
+                .collect(Collectors.toMap(boundary -> boundary.bookingId, boundary -> boundary.ownerId,
+                        (left, right) -> left, LinkedHashMap::new));
+        List<Long> ids = new ArrayList<>(ownerIds.keySet());
+        transactionTemplate.executeWithoutResult(status -> {
+            List<Booking> expired = bookingRepository.findStartedForUpdate(ids, BookingStatus.WAITING, now);
+            if (expired.isEmpty()) {
+                return;
+            }
+            bookingRepository.updateStatusByIdIn(expired.stream()
+                    .map(Booking::getId)
+                    .collect(Collectors.toList()), BookingStatus.CANCELED);
+            TransactionHooks.afterCommit(() -> expired.forEach(booking -> {
+                bookingCalendar.release(booking.getItem().getId(), booking.getStart(), booking.getEnd());
+                ownerBookingCounters.onStatusChanged(ownerIds.get(booking.getId()), BookingStatus.WAITING,
+                        BookingStatus.CANCELED);
+            }));
+            log.debug("Отменено ожидающих бронирований по истечении срока: {}", expired.size());
+        });
+    }
+
+    private void refreshPointers(Long itemId, LocalDateTime now) {
+        transactionTemplate.executeWithoutResult(status -> itemBookingPointers.refresh(itemId, now));
+    }
+
+    private static long toMillis(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static final class Boundary {
+
+        private enum Type {
+            EXPIRE,
+            END
+        }
+
+        private final Type type;
+        private final Long bookingId;
+        private final Long itemId;
+        private final Long ownerId;
+
+        private Boundary(Type type, Long bookingId, Long itemId, Long ownerId) {
+            this.type = type;
+            this.bookingId = bookingId;
+            this.itemId = itemId;
+            this.ownerId = ownerId;
+        }
+    }
+}
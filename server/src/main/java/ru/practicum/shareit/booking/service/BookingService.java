@@ -1,11 +1,15 @@
 package ru.practicum.shareit.booking.service;
 
 import org.springframework.data.domain.Pageable;
+import ru.practicum.shareit.booking.dto.BookingCursor;
+import ru.practicum.shareit.booking.dto.BookingDecisionDto;
+import ru.practicum.shareit.booking.dto.BookingDecisionResultDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.BookingUpdateDto;
 import ru.practicum.shareit.booking.dto.RequestBookingStatus;
 
 import java.util.List;
+import java.util.Map;
 
 public interface BookingService {
 
@@ -13,9 +17,17 @@ public interface BookingService {
 
     BookingDto updateBooking(Long bookingId, Boolean isApproved);
 
+    List<BookingDecisionResultDto> updateBookings(List<BookingDecisionDto> decisions);
+
     BookingDto getBooking(Long bookingId);
 
     List<BookingDto> getBookingsByUser(RequestBookingStatus state, Pageable pageable);
 
     List<BookingDto> getBookingStatusByOwner(RequestBookingStatus state, Pageable pageable);
+
+    Map<RequestBookingStatus, Long> getOwnerSummary();
+
+    List<BookingDto> getBookingsByUser(RequestBookingStatus state, BookingCursor after, int size);
+
+    List<BookingDto> getBookingStatusByOwner(RequestBookingStatus state, BookingCursor after, int size);
 }
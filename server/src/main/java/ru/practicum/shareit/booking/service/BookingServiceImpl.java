@@ -2,16 +2,24 @@ package ru.practicum.shareit.booking.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.shareit.booking.mapper.BookingMapper;
+import ru.practicum.shareit.booking.repository.BookingBatchRepository;
 import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.booking.dto.BookingCursor;
+import ru.practicum.shareit.booking.dto.BookingDecisionDto;
+import ru.practicum.shareit.booking.dto.BookingDecisionResultDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.BookingStateDto;
 import ru.practicum.shareit.booking.dto.BookingUpdateDto;
 import ru.practicum.shareit.booking.dto.RequestBookingStatus;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.exception.ConflictException;
 import ru.practicum.shareit.exception.IdNotFoundException;
 import ru.practicum.shareit.exception.ItemNotAvailableException;
 import ru.practicum.shareit.exception.RequestStatusException;
@@ -20,10 +28,16 @@ import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.repository.ItemRepository;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.service.UserService;
+import ru.practicum.shareit.utils.TransactionHooks;
 
-import javax.persistence.EntityManager;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -32,13 +46,22 @@ import java.util.stream.Collectors;
 @Transactional(readOnly = true)
 public class BookingServiceImpl implements BookingService {
 
+    private static final List<BookingStatus> ACTIVE_STATUSES =
+            List.of(BookingStatus.WAITING, BookingStatus.APPROVED);
+
     private final BookingRepository bookingRepository;
+    private final BookingBatchRepository bookingBatchRepository;
     private final ItemRepository itemRepository;
-    private final EntityManager entityManager;
     private final UserService userService;
+    private final BookingCalendar bookingCalendar;
+    private final BookingLifecycleEngine bookingLifecycleEngine;
+    private final OwnerBookingCounters ownerBookingCounters;
+    private final ItemAdmissionGate itemAdmissionGate;
+    private final ItemBookingPointers itemBookingPointers;
 
     /**
-     * Метод создает заявку на бронирование вещи
+     * Метод создает заявку на бронирование вещи. Транзакция открывается только после того,
+     * как подошла очередь создания бронирований вещи.
      *
      *
      * @author Borodulin Maxim
@@ -46,35 +69,17 @@ public class BookingServiceImpl implements BookingService {
      * @return сохраненную заяку на бронирование
      */
     @Override
-    @Transactional
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public BookingDto create(BookingUpdateDto bookingParam) {
         validateDate(bookingParam);
         log.debug("Валидация дат прошла успешно!");
 
-        User user = userService.getAuthenticatedUser();
-
-        Item item = itemRepository.findById(bookingParam.getItemId())
-                .orElseThrow(() -> new IdNotFoundException("Вещь с id = " + bookingParam.getItemId() + " не найдена"));
-
-
-        if (user.getId().equals(item.getOwner().getId())) {
-            throw new IdNotFoundException("Пользователь с id = " + user.getId() +
-                    " не может забронировать свой же товар");
-        }
-        if (!itemRepository.isItemAvailable(bookingParam.getItemId())) {
-            throw new ItemNotAvailableException(bookingParam.getItemId().toString());
+        if (!itemAdmissionGate.isClusterWide()
+                && bookingCalendar.isTaken(bookingParam.getItemId(), bookingParam.getStart(), bookingParam.getEnd())) {
+            throw new ItemNotAvailableException("Вещь с id = " + bookingParam.getItemId()
+                    + " уже забронирована на период с " + bookingParam.getStart() + " по " + bookingParam.getEnd());
         }
-
-        log.debug("Все проверки пройдены");
-
-        bookingParam.setStatus(BookingStatus.WAITING.name());
-
-        Booking booking = bookingRepository.save(
-                BookingMapper.bookingDtoToBooking(bookingParam, user, item));
-
-        log.debug("Статус изменен на ожидание, броинрование создалось");
-
-        return BookingMapper.bookingToBookingDTO(booking);
+        return itemAdmissionGate.admit(bookingParam.getItemId(), () -> createAdmitted(bookingParam));
     }
 
     /**
@@ -90,19 +95,21 @@ public class BookingServiceImpl implements BookingService {
     @Transactional
     public BookingDto updateBooking(Long bookingId, Boolean isApproved) {
         User user = userService.getAuthenticatedUser();
-        Booking booking = bookingRepository.findById(bookingId)
+        Booking booking = bookingRepository.findWithItemById(bookingId)
                 .orElseThrow(() -> new IdNotFoundException("Бронирования с id = " + bookingId + " не найдено"));
+        Item item = booking.getItem();
 
         log.debug("Бронирование найдено");
 
-        if (BookingStatus.valueOf(String.valueOf(booking.getStatus())).equals(BookingStatus.APPROVED)) {
-            throw new ValidateException("После подтверждения бронирования вещи '" +
-                    booking.getItem().getName() + "' нельзя отменить решение");
+        BookingStatus status = booking.getStatus();
+        BookingStatus target = isApproved ? BookingStatus.APPROVED : BookingStatus.REJECTED;
+        if (!status.canTransitionTo(target)) {
+            if (status == BookingStatus.APPROVED) {
+                throw new ValidateException("После подтверждения бронирования вещи '" +
+                        item.getName() + "' нельзя отменить решение");
+            }
+            throw new ValidateException("Бронирование вещи '" + item.getName() + "' уже в статусе " + status);
         }
-        Item item = itemRepository.findById(booking.getItem().getId())
-                .orElseThrow(() -> new IdNotFoundException("Вещь с id = " + booking.getItem().getId() + " не найдена"));
-
-        log.debug("Вещь из бронирования прошла проверку");
 
         if (!user.getId().equals(item.getOwner().getId())) {
             throw new IdNotFoundException("Пользователь с id = " + user.getId()
@@ -111,22 +118,94 @@ public class BookingServiceImpl implements BookingService {
 
         log.debug("Первичная валидация пройденна");
 
-        if (isApproved) {
-            itemRepository.updateItemAvailableById(item.getId(), false);
-            bookingRepository.updateBookingStatusById(bookingId, BookingStatus.APPROVED.name());
-            log.debug("Владелец подтвердил бронирование");
+        Booking result = changeStatus(booking, target);
+        TransactionHooks.afterCommit(() -> ownerBookingCounters.onStatusChanged(user.getId(), status, target));
+        if (target == BookingStatus.REJECTED) {
+            TransactionHooks.afterCommit(() ->
+                    bookingCalendar.release(item.getId(), booking.getStart(), booking.getEnd()));
         } else {
-            bookingRepository.updateBookingStatusById(bookingId, BookingStatus.REJECTED.name());
-            log.debug("Владелец отклонил бронирование");
+            itemBookingPointers.onApproved(item.getId(), result, booking.getStart(), booking.getEnd(),
+                    LocalDateTime.now());
+            TransactionHooks.afterCommit(() -> bookingLifecycleEngine.scheduleEnd(item.getId(), booking.getEnd()));
         }
 
+        log.debug("Владелец {} бронирование", isApproved ? "подтвердил" : "отклонил");
+        return BookingMapper.bookingToBookingDTO(result);
+    }
 
-        var result = bookingRepository.findById(bookingId)
-                .orElseThrow(() -> new IdNotFoundException("Бронирования с id = " + bookingId + " не найдено"));
+    /**
+     * Применяет решения владельца по нескольким бронированиям в одной транзакции. Владелец и
+     * статусы проверяются одним запросом, переходы выполняются пакетом условных update.
+     * Решение, которое нельзя применить, не прерывает обработку остальных.
+     *
+     * @param decisions решения владельца
+     * @return результаты в порядке решений из запроса
+     */
+    @Override
+    @Transactional
+    public List<BookingDecisionResultDto> updateBookings(List<BookingDecisionDto> decisions) {
+        User user = userService.getAuthenticatedUser();
 
-        entityManager.refresh(result);
-        log.debug("Метод успешно выполнен");
-        return BookingMapper.bookingToBookingDTO(result);
+        Set<Long> ids = decisions.stream()
+                .map(BookingDecisionDto::getBookingId)
+                .collect(Collectors.toSet());
+        Map<Long, BookingStateDto> states = bookingRepository.findStatesByIdIn(ids).stream()
+                .collect(Collectors.toMap(BookingStateDto::getId, Function.identity()));
+
+        BookingDecisionResultDto[] results = new BookingDecisionResultDto[decisions.size()];
+        List<Integer> approveIndexes = new ArrayList<>();
+        List<BookingStateDto> approves = new ArrayList<>();
+        List<Integer> rejectIndexes = new ArrayList<>();
+        List<BookingStateDto> rejects = new ArrayList<>();
+        Set<Long> seen = new HashSet<>();
+
+        for (int i = 0; i < decisions.size(); i++) {
+            BookingDecisionDto decision = decisions.get(i);
+            Long id = decision.getBookingId();
+            BookingStateDto state = states.get(id);
+            if (!seen.add(id)) {
+                results[i] = BookingDecisionResultDto.failed(id, "Повторное решение по бронированию с id = " + id);
+                continue;
+            }
+            if (state == null || !user.getId().equals(state.getOwnerId())) {
+                results[i] = BookingDecisionResultDto.failed(id, "Бронирования с id = " + id + " не найдено");
+                continue;
+            }
+            BookingStatus status = state.getStatus();
+            BookingStatus target = decision.getApproved() ? BookingStatus.APPROVED : BookingStatus.REJECTED;
+            if (!status.canTransitionTo(target)) {
+                results[i] = BookingDecisionResultDto.failed(id, "Бронирование уже в статусе " + status);
+                continue;
+            }
+            if (target == BookingStatus.APPROVED) {
+                approveIndexes.add(i);
+                approves.add(state);
+            } else {
+                rejectIndexes.add(i);
+                rejects.add(state);
+            }
+        }
+
+        List<BookingStateDto> rejected = collectResults(bookingBatchRepository.reject(rejects), rejects,
+                rejectIndexes, BookingStatus.REJECTED, results);
+        List<BookingStateDto> approved = collectResults(bookingBatchRepository.approve(approves), approves,
+                approveIndexes, BookingStatus.APPROVED, results);
+        LocalDateTime now = LocalDateTime.now();
+        approved.forEach(state -> itemBookingPointers.onApproved(state.getItemId(),
+                bookingRepository.getReferenceById(state.getId()), state.getStart(), state.getEnd(), now));
+
+        TransactionHooks.afterCommit(() -> {
+            rejected.forEach(state -> {
+                bookingCalendar.release(state.getItemId(), state.getStart(), state.getEnd());
+                ownerBookingCounters.onStatusChanged(user.getId(), state.getStatus(), BookingStatus.REJECTED);
+            });
+            approved.forEach(state -> {
+                bookingLifecycleEngine.scheduleEnd(state.getItemId(), state.getEnd());
+                ownerBookingCounters.onStatusChanged(user.getId(), state.getStatus(), BookingStatus.APPROVED);
+            });
+        });
+        log.debug("Пакет решений обработан: подтверждений {}, отклонений {}", approves.size(), rejects.size());
+        return Arrays.asList(results);
     }
 
     @Override
@@ -160,33 +239,67 @@ public class BookingServiceImpl implements BookingService {
     public List<BookingDto> getBookingStatusByOwner(RequestBookingStatus state, Pageable pageable) {
         User user = userService.getAuthenticatedUser();
 
-        List<Item> items = itemRepository.findItemsByOwnerId(user.getId());
-        if (items.isEmpty()) {
-            throw new IdNotFoundException("Вещь с id пользователя = " + user.getId() + " не найдена");
-        }
+        checkHasItems(user.getId());
         return findBookingsByOwnerIdAndStatus(user.getId(), state, pageable).stream()
                 .map(BookingMapper::bookingToBookingDTO)
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Сводка для владельца: число бронирований его вещей по каждому состоянию без запроса к базе
+     *
+     * @return число бронирований по состояниям
+     */
+    @Override
+    public Map<RequestBookingStatus, Long> getOwnerSummary() {
+        User user = userService.getAuthenticatedUser();
+
+        return ownerBookingCounters.get(user.getId());
+    }
+
+    @Override
+    public List<BookingDto> getBookingsByUser(RequestBookingStatus state, BookingCursor after, int size) {
+        User user = userService.getAuthenticatedUser();
+
+        return findBookingsByUserIdAndStatusAfter(user.getId(), state, after, PageRequest.of(0, size)).stream()
+                .map(BookingMapper::bookingToBookingDTO)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public List<BookingDto> getBookingStatusByOwner(RequestBookingStatus state, BookingCursor after, int size) {
+        User user = userService.getAuthenticatedUser();
+
+        checkHasItems(user.getId());
+        return findBookingsByOwnerIdAndStatusAfter(user.getId(), state, after, PageRequest.of(0, size)).stream()
+                .map(BookingMapper::bookingToBookingDTO)
+                .collect(Collectors.toList());
+    }
+
+    private void checkHasItems(Long ownerId) {
+        if (!itemRepository.existsByOwnerId(ownerId)) {
+            throw new IdNotFoundException("Вещь с id пользователя = " + ownerId + " не найдена");
+        }
+    }
+
     private List<Booking> findBookingsByOwnerIdAndStatus(Long ownerId, RequestBookingStatus state,
                                                          Pageable pageable) {
         switch (state) {
             case ALL:
-                return bookingRepository.findBookingsByItem_OwnerIdOrderByStartDesc(ownerId, pageable);
+                return bookingRepository.findBookingsByItem_OwnerIdOrderByStartDescIdDesc(ownerId, pageable);
             case WAITING:
-                return bookingRepository.findBookingsByItem_OwnerIdAndStatusOrderByStartDesc(ownerId,
-                        BookingStatus.WAITING.name(), pageable);
+                return bookingRepository.findBookingsByItem_OwnerIdAndStatusOrderByStartDescIdDesc(ownerId,
+                        BookingStatus.WAITING, pageable);
             case REJECTED:
-                return bookingRepository.findBookingsByItem_OwnerIdAndStatusOrderByStartDesc(ownerId,
-                        BookingStatus.REJECTED.name(), pageable);
+                return bookingRepository.findBookingsByItem_OwnerIdAndStatusOrderByStartDescIdDesc(ownerId,
+                        BookingStatus.REJECTED, pageable);
             case CURRENT:
                 return bookingRepository.findCurrentBookingByOwnerId(ownerId, pageable);
             case PAST:
-                return bookingRepository.findBookingsByItem_OwnerIdAndEndBeforeOrderByStartDesc(ownerId,
+                return bookingRepository.findBookingsByItem_OwnerIdAndEndBeforeOrderByStartDescIdDesc(ownerId,
                         LocalDateTime.now(), pageable);
             case FUTURE:
-                return bookingRepository.findBookingsByItem_OwnerIdAndStartAfterOrderByStartDesc(ownerId,
+                return bookingRepository.findBookingsByItem_OwnerIdAndStartAfterOrderByStartDescIdDesc(ownerId,
                         LocalDateTime.now(), pageable);
             default:
                 throw new RequestStatusException(state.name());
@@ -197,13 +310,13 @@ public class BookingServiceImpl implements BookingService {
                                                         Pageable pageable) {
         switch (state) {
             case ALL:
-                return bookingRepository.findBookingByBookerIdOrderByStartDesc(bookerId, pageable);
+                return bookingRepository.findBookingByBookerIdOrderByStartDescIdDesc(bookerId, pageable);
             case WAITING:
-                return bookingRepository.findBookingByBookerIdAndStatusOrderByStartDesc(bookerId,
-                        BookingStatus.WAITING.name(), pageable);
+                return bookingRepository.findBookingByBookerIdAndStatusOrderByStartDescIdDesc(bookerId,
+                        BookingStatus.WAITING, pageable);
             case REJECTED:
-                return bookingRepository.findBookingByBookerIdAndStatusOrderByStartDesc(bookerId,
-                        BookingStatus.REJECTED.name(), pageable);
+                return bookingRepository.findBookingByBookerIdAndStatusOrderByStartDescIdDesc(bookerId,
+                        BookingStatus.REJECTED, pageable);
             case CURRENT:
                 return bookingRepository.findCurrentBookingByBookerId(bookerId, pageable);
             case PAST:
@@ -215,6 +328,172 @@ public class BookingServiceImpl implements BookingService {
         }
     }
 
+    private List<Booking> findBookingsByUserIdAndStatusAfter(Long bookerId, RequestBookingStatus state,
+                                                             BookingCursor after, Pageable pageable) {
+        LocalDateTime start = after.getStart();
+        Long id = after.getId();
+        switch (state) {
+            case ALL:
+                return bookingRepository.findBookerPageAfter(bookerId, start, id, pageable);
+            case WAITING:
+                return bookingRepository.findBookerPageByStatusAfter(bookerId, BookingStatus.WAITING,
+                        start, id, pageable);
+            case REJECTED:
+                return bookingRepository.findBookerPageByStatusAfter(bookerId, BookingStatus.REJECTED,
+                        start, id, pageable);
+            case CURRENT:
+                return bookingRepository.findBookerCurrentPageAfter(bookerId, LocalDateTime.now(), start, id,
+                        pageable);
+            case PAST:
+                return bookingRepository.findBookerPastPageAfter(bookerId, LocalDateTime.now(), start, id, pageable);
+            case FUTURE:
+                return bookingRepository.findBookerFuturePageAfter(bookerId, LocalDateTime.now(), start, id,
+                        pageable);
+            default:
+                throw new RequestStatusException(state.name());
+        }
+    }
+
+    private List<Booking> findBookingsByOwnerIdAndStatusAfter(Long ownerId, RequestBookingStatus state,
+                                                              BookingCursor after, Pageable pageable) {
+        LocalDateTime start = after.getStart();
+        Long id = after.getId();
+        switch (state) {
+            case ALL:
+                return bookingRepository.findOwnerPageAfter(ownerId, start, id, pageable);
+            case WAITING:
+                return bookingRepository.findOwnerPageByStatusAfter(ownerId, BookingStatus.WAITING,
+                        start, id, pageable);
+            case REJECTED:
+                return bookingRepository.findOwnerPageByStatusAfter(ownerId, BookingStatus.REJECTED,
+                        start, id, pageable);
+            case CURRENT:
+                return bookingRepository.findOwnerCurrentPageAfter(ownerId, LocalDateTime.now(), start, id,
+                        pageable);
+            case PAST:
+                return bookingRepository.findOwnerPastPageAfter(ownerId, LocalDateTime.now(), start, id, pageable);
+            case FUTURE:
+                return bookingRepository.findOwnerFuturePageAfter(ownerId, LocalDateTime.now(), start, id,
+                        pageable);
+            default:
+                throw new RequestStatusException(state.name());
+        }
+    }
+
+    /**
+     * Заполняет результаты пакетного перехода
+     *
+     * @return бронирования, статус которых изменен
+     */
+    private List<BookingStateDto> collectResults(int[] counts, List<BookingStateDto> states, List<Integer> indexes,
+                                                 BookingStatus target, BookingDecisionResultDto[] results) {
+        List<BookingStateDto> changed = new ArrayList<>();
+        for (int i = 0; i < counts.length; i++) {
+            BookingStateDto state = states.get(i);
+            if (counts[i] == 0) {
+                results[indexes.get(i)] = BookingDecisionResultDto.failed(state.getId(),
+                        "Бронирование уже изменено другим запросом или пересекается с подтвержденным бронированием");
+            } else {
+                results[indexes.get(i)] = BookingDecisionResultDto.applied(state.getId(), target);
+                changed.add(state);
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Переводит бронирование в новый статус одним условным update: строка меняется, только если
+     * статус и версия совпадают с прочитанными. Подтверждение дополнительно проверяет, что вещь
+     * не подтверждена другому пользователю на пересекающийся период.
+     *
+     * @param booking прочитанное бронирование
+     * @param target новый статус
+     * @return бронирование в новом статусе
+     */
+    private Booking changeStatus(Booking booking, BookingStatus target) {
+        int updated;
+        if (target == BookingStatus.APPROVED) {
+            updated = bookingRepository.approveIfUnchanged(booking.getId(), booking.getStatus(), target,
+                    booking.getVersion(), booking.getItem().getId(), booking.getStart(), booking.getEnd());
+        } else {
+            updated = bookingRepository.updateStatusIfUnchanged(booking.getId(), booking.getStatus(), target,
+                    booking.getVersion());
+        }
+        if (updated == 0) {
+            throw new ConflictException("Бронирование с id = " + booking.getId()
+                    + " уже изменено другим запросом или пересекается с подтвержденным бронированием");
+        }
+        return booking.toBuilder()
+                .status(target)
+                .version(booking.getVersion() + 1)
+                .build();
+    }
+
+    /**
+     * Создает бронирование в транзакции, открытой очередью бронирований вещи
+     */
+    private BookingDto createAdmitted(BookingUpdateDto bookingParam) {
+        User user = userService.getAuthenticatedUser();
+
+        Item item = itemRepository.findById(bookingParam.getItemId())
+                .orElseThrow(() -> new IdNotFoundException("Вещь с id = " + bookingParam.getItemId() + " не найдена"));
+
+
+        if (user.getId().equals(item.getOwner().getId())) {
+            throw new IdNotFoundException("Пользователь с id = " + user.getId() +
+                    " не может забронировать свой же товар");
+        }
+        if (!itemRepository.isItemAvailable(bookingParam.getItemId())) {
+            throw new ItemNotAvailableException(bookingParam.getItemId().toString());
+        }
+
+        reserveSlot(item.getId(), bookingParam.getStart(), bookingParam.getEnd());
+
+        log.debug("Все проверки пройдены");
+
+        bookingParam.setStatus(BookingStatus.WAITING);
+
+        Booking booking = bookingRepository.save(
+                BookingMapper.bookingDtoToBooking(bookingParam, user, item));
+        itemBookingPointers.onCreated(item.getId());
+        TransactionHooks.afterCommit(() -> {
+            bookingLifecycleEngine.scheduleExpiry(booking.getId(), item.getOwner().getId(), booking.getStart());
+            ownerBookingCounters.onCreated(item.getOwner().getId(), booking.getStart(), booking.getEnd());
+        });
+
+        log.debug("Статус изменен на ожидание, броинрование создалось");
+
+        return BookingMapper.bookingToBookingDTO(booking);
+    }
+
+    /**
+     * Занимает интервал бронирования в календаре вещи. Если запросы к вещи упорядочиваются между
+     * узлами, занятость решает база: календарь узла не видит бронирований, созданных, отклоненных
+     * и отмененных на других узлах, поэтому после проверки по базе он загружается из нее заново.
+     * Если транзакция откатится, интервал освобождается.
+     *
+     * @param itemId идентификатор вещи
+     * @param start начало бронирования
+     * @param end окончание бронирования
+     */
+    private void reserveSlot(Long itemId, LocalDateTime start, LocalDateTime end) {
+        boolean taken;
+        if (itemAdmissionGate.isClusterWide()) {
+            taken = bookingRepository.existsOverlapping(itemId, ACTIVE_STATUSES, start, end);
+            if (!taken) {
+                bookingCalendar.invalidate(itemId);
+                bookingCalendar.reserve(itemId, start, end);
+            }
+        } else {
+            taken = !bookingCalendar.reserve(itemId, start, end);
+        }
+        if (taken) {
+            throw new ItemNotAvailableException("Вещь с id = " + itemId
+                    + " уже забронирована на период с " + start + " по " + end);
+        }
+        TransactionHooks.afterRollback(() -> bookingCalendar.release(itemId, start, end));
+    }
+
     /**
      * @author Borodulin Maxim
      * Вспомогательный метод для валидации дат броинрования
@@ -0,0 +1,99 @@
+package ru.practicum.shareit.booking.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.exception.TooManyRequestsException;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Очередь создания бронирований одной вещи. Запросы к одной вещи проходят по одному в порядке
+ * поступления через справедливую блокировку из набора полос по id вещи, запросы к разным вещам
+ * почти никогда не делят полосу. Очередь занимается до открытия транзакции, поэтому ожидающие
+ * запросы не держат соединения из пула. Транзакция открывается уже в очереди, и первым делом
+ * в ней берется advisory lock PostgreSQL, который упорядочивает запросы между узлами. Если очередь
+ * не подошла за отведенное время, запрос отклоняется с 429.
+ */
+@Slf4j
+@Component
+public class ItemAdmissionGate {
+
+    private static final String ADVISORY_LOCK_SQL = "select pg_advisory_xact_lock(?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ReentrantLock[] stripes;
+    private final long waitMillis;
+    private final boolean advisoryLock;
+
+    public ItemAdmissionGate(JdbcTemplate jdbcTemplate,
+                             PlatformTransactionManager transactionManager,
+                             @Value("${shareit.booking.admission.stripes:256}") int stripes,
+                             @Value("${shareit.booking.admission.wait-ms:2000}") long waitMillis,
+                             @Value("${shareit.booking.admission.advisory-lock:true}") boolean advisoryLock) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.stripes = new ReentrantLock[stripes];
+        for (int i = 0; i < stripes; i++) {
+            this.stripes[i] = new ReentrantLock(true);
+        }
+        this.waitMillis = waitMillis;
+        this.advisoryLock = advisoryLock;
+    }
+
+    /**
+     * Дожидается очереди на создание бронирования вещи и выполняет действие в новой транзакции.
+     * Очередь освобождается после завершения транзакции.
+     *
+     * @param itemId идентификатор вещи
+     * @param action создание бронирования
+     * @return результат действия
+     */
+    public <T> T admit(Long itemId, Supplier<T> action) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("Очередь бронирований вещи занимается до открытия транзакции");
+        }
+        ReentrantLock lock = stripes[stripe(itemId)];
+        boolean acquired;
+        try {
+            acquired = lock.tryLock(waitMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        if (!acquired) {
+            log.debug("Очередь бронирований вещи с id = {} не подошла за {} мс", itemId, waitMillis);
+            throw new TooManyRequestsException("Слишком много одновременных бронирований вещи с id = " + itemId);
+        }
+        try {
+            return transactionTemplate.execute(status -> {
+                if (advisoryLock) {
+                    jdbcTemplate.queryForList(ADVISORY_LOCK_SQL, itemId);
+                }
+                return action.get();
+            });
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return true, если очередь упорядочивает запросы между узлами и занятость вещи нужно
+     * перепроверять по базе: календарь узла не видит бронирований, созданных другими узлами
+     */
+    public boolean isClusterWide() {
+        return advisoryLock;
+    }
+
+    private int stripe(Long itemId) {
+        long hash = itemId * 0x9E3779B97F4A7C15L;
+        return (int) Math.floorMod(hash ^ (hash >>> 32), (long) stripes.length);
+    }
+}
@@ -0,0 +1,91 @@
+package ru.practicum.shareit.booking.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Ссылки вещи на последнее завершившееся и следующее (ближайшее по окончанию) подтвержденное
+ * бронирование. Ссылки хранятся в строке вещи вместе с границами: подтверждение бронирования
+ * сдвигает их условным update, а когда следующее бронирование завершается, движок жизненного
+ * цикла пересчитывает обе ссылки двумя запросами по индексу. Пока пересчет не выполнен,
+ * чтение получает актуальные бронирования теми же запросами без записи.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ItemBookingPointers {
+
+    private static final PageRequest FIRST = PageRequest.of(0, 1);
+
+    private final ItemRepository itemRepository;
+    private final BookingRepository bookingRepository;
+
+    public void onCreated(Long itemId) {
+        itemRepository.incrementBookingCount(itemId);
+    }
+
+    /**
+     * Учитывает подтвержденное бронирование в ссылках вещи. Выполняется в транзакции подтверждения.
+     */
+    public void onApproved(Long itemId, Booking booking, LocalDateTime start, LocalDateTime end,
+                           LocalDateTime now) {
+        if (end.isAfter(now)) {
+            itemRepository.offerNextBooking(itemId, booking, end);
+        } else if (end.isBefore(now)) {
+            itemRepository.offerLastBooking(itemId, booking, start);
+        }
+    }
+
+    /**
+     * Пересчитывает ссылки вещи после завершения следующего бронирования. Строка вещи блокируется
+     * до чтения бронирований, поэтому параллельное подтверждение применяется уже к новым ссылкам.
+     * Выполняется в транзакции.
+     */
+    public void refresh(Long itemId, LocalDateTime now) {
+        if (itemRepository.findForUpdateById(itemId).isEmpty()) {
+            return;
+        }
+        Booking last = first(bookingRepository.findLastByItemId(itemId, BookingStatus.APPROVED, now, FIRST));
+        Booking next = first(bookingRepository.findNextByItemId(itemId, BookingStatus.APPROVED, now, FIRST));
+        itemRepository.setBookingPointers(itemId, last, last != null ? last.getStart() : null,
+                next, next != null ? next.getEnd() : null);
+        log.debug("Ссылки на бронирования вещи с id = {} пересчитаны", itemId);
+    }
+
+    /**
+     * @return вещи, следующее бронирование которых уже завершилось, а ссылки еще не пересчитаны
+     */
+    public List<Long> findStale(LocalDateTime now) {
+        return itemRepository.findIdsWithEndedNextBooking(now);
+    }
+
+    /**
+     * @param item вещь со ссылками на бронирования
+     * @param now текущее время
+     * @return массив из двух элементов: последнее и следующее бронирование (могут быть null)
+     */
+    public Booking[] resolve(Item item, LocalDateTime now) {
+        if (item.getNextBookingEnd() == null || item.getNextBookingEnd().isAfter(now)) {
+            return new Booking[]{item.getLastBooking(), item.getNextBooking()};
+        }
+        Long itemId = item.getId();
+        return new Booking[]{
+                first(bookingRepository.findLastByItemId(itemId, BookingStatus.APPROVED, now, FIRST)),
+                first(bookingRepository.findNextByItemId(itemId, BookingStatus.APPROVED, now, FIRST))
+        };
+    }
+
+    private static Booking first(List<Booking> bookings) {
+        return bookings.isEmpty() ? null : bookings.get(0);
+    }
+}
@@ -0,0 +1,158 @@
+package ru.practicum.shareit.booking.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.booking.dto.BookingStateDto;
+import ru.practicum.shareit.booking.dto.OwnerBookingCountDto;
+import ru.practicum.shareit.booking.dto.RequestBookingStatus;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Счетчики бронирований вещей владельца по состояниям {@link RequestBookingStatus}. Счетчики владельца
+ * загружаются из базы при первом запросе сводки, дальше обновляются при создании бронирований и смене
+ * статуса, а CURRENT/FUTURE/PAST сдвигаются по началам и окончаниям незавершившихся бронирований.
+ * Периодически счетчики сверяются с базой, а владельцы, не запрашивавшие сводку с прошлой сверки,
+ * выгружаются из памяти.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class OwnerBookingCounters {
+
+    private static final int CHUNK_SIZE = 500;
+
+    private final BookingRepository bookingRepository;
+
+    private final ConcurrentMap<Long, Summary> summaries = new ConcurrentHashMap<>();
+
+    /**
+     * @param ownerId идентификатор владельца
+     * @return число бронирований вещей владельца по каждому состоянию
+     */
+    public Map<RequestBookingStatus, Long> get(Long ownerId) {
+        LocalDateTime now = LocalDateTime.now();
+        Summary summary = summaries.get(ownerId);
+        if (summary == null) {
+            Summary loaded = load(List.of(ownerId), now).get(ownerId);
+            summary = summaries.putIfAbsent(ownerId, loaded);
+            if (summary == null) {
+                summary = loaded;
+            }
+        }
+        return summary.snapshot(now);
+    }
+
+    public void onCreated(Long ownerId, LocalDateTime start, LocalDateTime end) {
+        Summary summary = summaries.get(ownerId);
+        if (summary != null) {
+            summary.add(BookingStatus.WAITING, start, end, LocalDateTime.now());
+        }
+    }
+
+    public void onStatusChanged(Long ownerId, BookingStatus from, BookingStatus to) {
+        Summary summary = summaries.get(ownerId);
+        if (summary != null) {
+            summary.move(from, to);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${shareit.booking.owner-summary.reconcile-ms:60000}")
+    public void reconcile() {
+        List<Long> ownerIds = new ArrayList<>();
+        summaries.forEach((ownerId, summary) -> {
+            if (summary.read) {
+                ownerIds.add(ownerId);
+            } else {
+                summaries.remove(ownerId, summary);
+            }
+        });
+        for (int from = 0; from < ownerIds.size(); from += CHUNK_SIZE) {
+            List<Long> chunk = ownerIds.subList(from, Math.min(from + CHUNK_SIZE, ownerIds.size()));
+            load(chunk, LocalDateTime.now()).forEach(summaries::replace);
+        }
+        log.debug("Счетчики бронирований сверены с базой, владельцев: {}", ownerIds.size());
+    }
+
+    private Map<Long, Summary> load(Collection<Long> ownerIds, LocalDateTime now) {
+        Map<Long, Summary> loaded = new HashMap<>();
+        ownerIds.forEach(ownerId -> loaded.put(ownerId, new Summary()));
+        for (OwnerBookingCountDto count : bookingRepository.countByOwnerIds(ownerIds, now)) {
+            Summary summary = loaded.get(count.getOwnerId());
+            summary.byStatus[count.getStatus().ordinal()] += count.getTotal();
+            summary.past += count.getPast();
+        }
+        for (BookingStateDto booking : bookingRepository.findUnfinishedByOwnerIds(ownerIds, now)) {
+            loaded.get(booking.getOwnerId()).schedule(booking.getStart(), booking.getEnd(), now);
+        }
+        return loaded;
+    }
+
+    private static final class Summary {
+
+        private final long[] byStatus = new long[BookingStatus.values().length];
+        private final PriorityQueue<LocalDateTime> pendingStarts = new PriorityQueue<>();
+        private final PriorityQueue<LocalDateTime> pendingEnds = new PriorityQueue<>();
+        private long past;
+
+        private volatile boolean read;
+
+        private synchronized void add(BookingStatus status, LocalDateTime start, LocalDateTime end,
+                                      LocalDateTime now) {
+            byStatus[status.ordinal()]++;
+            if (end.isBefore(now)) {
+                past++;
+            } else {
+                schedule(start, end, now);
+            }
+        }
+
+        private synchronized void move(BookingStatus from, BookingStatus to) {
+            byStatus[from.ordinal()]--;
+            byStatus[to.ordinal()]++;
+        }
+
+        private synchronized void schedule(LocalDateTime start, LocalDateTime end, LocalDateTime now) {
+            if (start.isAfter(now)) {
+                pendingStarts.add(start);
+            }
+            pendingEnds.add(end);
+        }
+
+        private synchronized Map<RequestBookingStatus, Long> snapshot(LocalDateTime now) {
+            read = true;
+            while (!pendingStarts.isEmpty() && !pendingStarts.peek().isAfter(now)) {
+                pendingStarts.poll();
+            }
+            while (!pendingEnds.isEmpty() && pendingEnds.peek().isBefore(now)) {
+                pendingEnds.poll();
+                past++;
+            }
+            long all = 0;
+            for (long count : byStatus) {
+                all += count;
+            }
+            Map<RequestBookingStatus, Long> snapshot = new EnumMap<>(RequestBookingStatus.class);
+            snapshot.put(RequestBookingStatus.ALL, all);
+            snapshot.put(RequestBookingStatus.CURRENT, all - pendingStarts.size() - past);
+            snapshot.put(RequestBookingStatus.PAST, past);
+            snapshot.put(RequestBookingStatus.FUTURE, (long) pendingStarts.size());
+            snapshot.put(RequestBookingStatus.WAITING, byStatus[BookingStatus.WAITING.ordinal()]);
+            snapshot.put(RequestBookingStatus.REJECTED, byStatus[BookingStatus.REJECTED.ordinal()]);
+            return snapshot;
+        }
+    }
+}
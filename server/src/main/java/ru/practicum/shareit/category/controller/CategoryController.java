@@ -2,10 +2,12 @@ package ru.practicum.shareit.category.controller;
 
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.practicum.shareit.category.dto.CategoryDto;
 import ru.practicum.shareit.category.service.CategoryService;
-import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.dto.ItemResponseDto;
 import ru.practicum.shareit.item.service.ItemService;
 
@@ -26,6 +28,20 @@ public class CategoryController {
         return itemService.getItemForCatId(catId);
     }
 
+    @GetMapping(value = "/{catId}", params = "size")
+    public List<ItemResponseDto> getItemForCatIdPage(@PathVariable Long catId,
+                                                     @RequestParam(required = false) Long after,
+                                                     @RequestParam final Integer size) {
+        return itemService.getItemForCatId(catId, after, size);
+    }
+
+    @GetMapping(value = "/{catId}", params = "stream=true")
+    public ResponseEntity<StreamingResponseBody> streamItemForCatId(@PathVariable Long catId) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(out -> itemService.writeItemsForCatId(catId, out));
+    }
+
     @PostMapping
     public CategoryDto addCategory(@RequestBody CategoryDto categoryDto) {
         return categoryService.addCategory(categoryDto);
@@ -35,4 +51,11 @@ public class CategoryController {
     public Map<String, List<ItemResponseDto>> getAll() {
         return itemService.getAll();
     }
+
+    @GetMapping(params = "stream=true")
+    public ResponseEntity<StreamingResponseBody> streamAll() {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(itemService::writeCatalog);
+    }
 }
@@ -0,0 +1,132 @@
+package ru.practicum.shareit.category.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.category.model.Category;
+import ru.practicum.shareit.category.repository.CategoryRepository;
+import ru.practicum.shareit.exception.IdNotFoundException;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Справочник категорий в памяти приложения: id -> название.
+ * Категорий мало и они почти не меняются, поэтому справочник загружается при старте
+ * и обновляется после записи в {@link CategoryServiceImpl#addCategory}. Для небольших id
+ * название берется из массива по индексу, для остальных - из хеш-таблицы.
+ * Промах (категория создана другим экземпляром приложения) дочитывается из базы.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CategoryRegistry {
+
+    private static final int DENSE_LIMIT = 1 << 16;
+
+    private final CategoryRepository categoryRepository;
+
+    private volatile Snapshot snapshot = new Snapshot(new String[0], Map.of());
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void reload() {
+        List<Category> categories = categoryRepository.findAll();
+        Map<Long, String> titles = new HashMap<>();
+        categories.forEach(category -> titles.put(category.getId(), category.getTitle()));
+        snapshot = Snapshot.of(titles);
+        log.debug("Справочник категорий загружен: {} категорий", titles.size());
+    }
+
+    public Optional<String> findTitle(Long id) {
+        if (id == null) {
+            return Optional.empty();
+        }
+        String title = snapshot.get(id);
+        if (title != null) {
+            return Optional.of(title);
+        }
+        Optional<Category> category = categoryRepository.findById(id);
+        category.ifPresent(this::put);
+        return category.map(Category::getTitle);
+    }
+
+    public boolean exists(Long id) {
+        return findTitle(id).isPresent();
+    }
+
+    /**
+     * Возвращает категории по идентификаторам без обращения к базе.
+     * Экземпляры не управляются EntityManager и годятся для ссылок из связей вещи.
+     *
+     * @param ids идентификаторы категорий
+     * @return категории с заполненными названиями
+     * @throws IdNotFoundException если какой-либо категории нет
+     */
+    public Set<Category> resolve(Collection<Long> ids) {
+        Set<Category> categories = new HashSet<>();
+        for (Long id : ids) {
+            String title = findTitle(id)
+                    .orElseThrow(() -> new IdNotFoundException(String.format("категория с id = %d не найдена", id)));
+            categories.add(new Category(id, title));
+        }
+        return categories;
+    }
+
+    public synchronized void put(Category category) {
+        Map<Long, String> titles = snapshot.toMap();
+        titles.put(category.getId(), category.getTitle());
+        snapshot = Snapshot.of(titles);
+    }
+
+    private static class Snapshot {
+        private final String[] dense;
+        private final Map<Long, String> sparse;
+
+        private Snapshot(String[] dense, Map<Long, String> sparse) {
+            this.dense = dense;
+            this.sparse = sparse;
+        }
+
+        private static Snapshot of(Map<Long, String> titles) {
+            long maxDenseId = titles.keySet().stream()
+                    .filter(id -> id >= 0 && id < DENSE_LIMIT)
+                    .mapToLong(Long::longValue)
+                    .max()
+                    .orElse(-1);
+            String[] dense = new String[(int) maxDenseId + 1];
+            Map<Long, String> sparse = new HashMap<>();
+            titles.forEach((id, title) -> {
+                if (id >= 0 && id < dense.length) {
+                    dense[id.intValue()] = title;
+                } else {
+                    sparse.put(id, title);
+                }
+            });
+            return new Snapshot(dense, sparse);
+        }
+
+        private String get(long id) {
+            if (id >= 0 && id < dense.length) {
+                return dense[(int) id];
+            }
+            return sparse.get(id);
+        }
+
+        private Map<Long, String> toMap() {
+            Map<Long, String> titles = new HashMap<>(sparse);
+            for (int id = 0; id < dense.length; id++) {
+                if (dense[id] != null) {
+                    titles.put((long) id, dense[id]);
+                }
+            }
+            return titles;
+        }
+    }
+}
@@ -2,19 +2,42 @@ package ru.practicum.shareit.category.service;
 
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.shareit.category.dto.CategoryDto;
 import ru.practicum.shareit.category.mapper.CategoryMapper;
+import ru.practicum.shareit.category.model.Category;
 import ru.practicum.shareit.category.repository.CategoryRepository;
+import ru.practicum.shareit.item.search.ItemSuggestionIndex;
+import ru.practicum.shareit.item.service.CatalogSnapshot;
+import ru.practicum.shareit.utils.TransactionHooks;
+
+import java.util.Optional;
 
 @Service
 @RequiredArgsConstructor
 public class CategoryServiceImpl implements CategoryService {
 
     private final CategoryRepository categoryRepository;
+    private final ItemSuggestionIndex suggestionIndex;
+    private final CatalogSnapshot catalogSnapshot;
+    private final CategoryRegistry categoryRegistry;
 
     @Override
+    @Transactional
     public CategoryDto addCategory(CategoryDto categoryDto) {
-        return CategoryMapper.categoryToCategoryDto(categoryRepository
-                .save(CategoryMapper.categoryDtoToCategory(categoryDto)));
+        Optional<String> previousTitle = categoryDto.getId() == null ? Optional.empty()
+                : categoryRepository.findById(categoryDto.getId()).map(Category::getTitle);
+        Category category = categoryRepository.save(CategoryMapper.categoryDtoToCategory(categoryDto));
+        Category registered = new Category(category.getId(), category.getTitle());
+        TransactionHooks.afterCommit(() -> {
+            categoryRegistry.put(registered);
+            if (previousTitle.isPresent()) {
+                suggestionIndex.replace(previousTitle.get(), registered.getTitle());
+                catalogSnapshot.rebuild();
+            } else {
+                suggestionIndex.add(registered.getTitle());
+            }
+        });
+        return CategoryMapper.categoryToCategoryDto(category);
     }
 }
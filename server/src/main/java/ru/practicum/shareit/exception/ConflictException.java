@@ -0,0 +1,9 @@
+package ru.practicum.shareit.exception;
+
+public class ConflictException extends RuntimeException {
+
+    public ConflictException(String message) {
+        super(message);
+    }
+
+}
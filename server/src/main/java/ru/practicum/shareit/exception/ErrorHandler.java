@@ -2,12 +2,15 @@ package ru.practicum.shareit.exception;
 
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
+import org.springframework.orm.jpa.JpaObjectRetrievalFailureException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
 
+import javax.persistence.EntityNotFoundException;
+
 
 @Slf4j
 @RestControllerAdvice
@@ -46,6 +49,17 @@ public class ErrorHandler {
         return new ErrorResponse(ex.getMessage());
     }
 
+    /**
+     * Ссылка на сущность, строки которой уже нет в базе, например пользователь из токена,
+     * удаленный на другом экземпляре сервера.
+     */
+    @ResponseStatus(HttpStatus.NOT_FOUND)
+    @ExceptionHandler({EntityNotFoundException.class, JpaObjectRetrievalFailureException.class})
+    public ErrorResponse handleEntityNotFoundException(final RuntimeException ex) {
+        log.debug("Получен статус 404 not found {}", ex.getMessage());
+        return new ErrorResponse("Запрошенный объект не найден");
+    }
+
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     @ExceptionHandler(MethodArgumentTypeMismatchException.class)
     public ErrorResponse handleValidationExceptions(MethodArgumentTypeMismatchException ex) {
@@ -75,5 +89,18 @@ public class ErrorHandler {
         return new ErrorResponse(e.getMessage());
     }
 
-}
+    @ExceptionHandler(TooManyRequestsException.class)
+    @ResponseStatus(HttpStatus.TOO_MANY_REQUESTS)
+    public ErrorResponse handleTooManyRequestsException(final TooManyRequestsException e) {
+        log.debug("Получен статус 429 too many requests {}", e.getMessage());
+        return new ErrorResponse(e.getMessage());
+    }
+
+    @ExceptionHandler(ConflictException.class)
+    @ResponseStatus(HttpStatus.CONFLICT)
+    public ErrorResponse handleConflictException(final ConflictException e) {
+        log.debug("Получен статус 409 conflict {}", e.getMessage());
+        return new ErrorResponse(e.getMessage());
+    }
 
+}
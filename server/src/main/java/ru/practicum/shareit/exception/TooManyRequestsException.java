@@ -0,0 +1,9 @@
+package ru.practicum.shareit.exception;
+
+public class TooManyRequestsException extends RuntimeException {
+
+    public TooManyRequestsException(String message) {
+        super(message);
+    }
+
+}
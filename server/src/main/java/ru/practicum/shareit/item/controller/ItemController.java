@@ -49,6 +49,23 @@ public class ItemController {
         return itemService.searchItem(text, PageRequest.of(from, size));
     }
 
+    @GetMapping("/suggest")
+    public List<String> suggest(@RequestParam(required = false, defaultValue = "") String prefix,
+                                @RequestParam(required = false, defaultValue = "10") final Integer size) {
+        return itemService.suggest(prefix, size);
+    }
+
+    /**
+     * Комментарии вещи от новых к старым. Карточка вещи содержит только последние комментарии,
+     * более ранние запрашиваются с {@code before} - id последнего полученного комментария.
+     */
+    @GetMapping("/{itemId}/comments")
+    public List<CommentDto> getComments(@PathVariable Long itemId,
+                                        @RequestParam(required = false) Long before,
+                                        @RequestParam(required = false, defaultValue = "10") final Integer size) {
+        return itemService.getComments(itemId, before, size);
+    }
+
     @PostMapping("/{itemId}/comment")
     public CommentDto comment(
             @PathVariable Long itemId,
@@ -0,0 +1,15 @@
+package ru.practicum.shareit.item.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Связь вещи с категорией без загрузки самих сущностей
+ */
+@Getter
+@AllArgsConstructor
+public class ItemCategoryIdDto {
+
+    private Long itemId;
+    private Long catId;
+}
@@ -26,4 +26,5 @@ public class ItemFullDto {
     private ItemBookingDto lastBooking;
     private ItemBookingDto nextBooking;
     private List<CommentDto> comments;
+    private Long commentCount;
 }
@@ -29,6 +29,19 @@ public class ItemMapper {
                 .build();
     }
 
+    public static ItemDto itemResponseDtoToItemDto(ItemResponseDto item, Set<Long> catIds) {
+        return ItemDto.builder()
+                .id(item.getId())
+                .name(item.getName())
+                .description(item.getDescription())
+                .photoUrl(item.getPhotoUrl())
+                .price(item.getPrice())
+                .available(item.getAvailable())
+                .catIds(catIds)
+                .requestId(item.getRequestId())
+                .build();
+    }
+
     public static ItemResponseDto itemToItemResponseDto(Item item) {
         return ItemResponseDto.builder()
                 .id(item.getId())
@@ -59,6 +72,7 @@ public class ItemMapper {
                         .bookerId(nextBooking.getBooker().getId())
                         .build() : null)
                 .comments(comments)
+                .commentCount(item.getCommentCount())
                 .build();
     }
 
@@ -1,12 +1,14 @@
 package ru.practicum.shareit.item.model;
 
 import lombok.*;
+import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.category.model.Category;
 import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.user.model.User;
 
 import javax.persistence.*;
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.HashSet;
 import java.util.Set;
 
@@ -35,6 +37,26 @@ public class Item {
     @Column(name = "price")
     private BigDecimal price;
 
+    @Column(name = "comment_count", insertable = false, updatable = false)
+    private Long commentCount;
+
+    @Column(name = "booking_count", insertable = false, updatable = false)
+    private Long bookingCount;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "last_booking_id", insertable = false, updatable = false)
+    private Booking lastBooking;
+
+    @Column(name = "last_booking_start", insertable = false, updatable = false)
+    private LocalDateTime lastBookingStart;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "next_booking_id", insertable = false, updatable = false)
+    private Booking nextBooking;
+
+    @Column(name = "next_booking_end", insertable = false, updatable = false)
+    private LocalDateTime nextBookingEnd;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
     private User owner;
@@ -1,13 +1,32 @@
 package ru.practicum.shareit.item.repository;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import ru.practicum.shareit.item.model.Comment;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface CommentRepository extends JpaRepository<Comment, Long> {
 
-    List<Comment> findAllByItemId(Long itemId);
+    @Query("select c from Comment c join fetch c.user where c.item.id = :itemId and c.id < :beforeId "
+            + "order by c.id desc")
+    List<Comment> findItemPageBefore(@Param("itemId") Long itemId, @Param("beforeId") Long beforeId,
+                                     Pageable pageable);
+
+    /**
+     * Идентификаторы последних {@code limit} отзывов каждой вещи: нумерация идет внутри вещи
+     * от новых отзывов к старым по индексу (item_id, id)
+     */
+    @Query(value = "select ranked.id from (select c.id, row_number() over (partition by c.item_id "
+            + "order by c.id desc) as position from comments c where c.item_id in :itemIds) ranked "
+            + "where ranked.position <= :limit", nativeQuery = true)
+    List<Long> findLatestIdsByItemIdIn(@Param("itemIds") Collection<Long> itemIds, @Param("limit") int limit);
+
+    @Query("select c from Comment c join fetch c.user where c.id in :ids order by c.id desc")
+    List<Comment> findAllWithUserByIdIn(@Param("ids") Collection<Long> ids);
 }
@@ -1,37 +1,125 @@
 package ru.practicum.shareit.item.repository;
 
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.item.dto.ItemCategoryIdDto;
+import ru.practicum.shareit.item.dto.ItemResponseDto;
 import ru.practicum.shareit.item.model.Item;
 
+import javax.persistence.LockModeType;
+import javax.persistence.QueryHint;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
 
 @Repository
 public interface ItemRepository extends JpaRepository<Item, Long> {
 
-    List<Item> findItemsByOwnerId(Long userId);
+    boolean existsByOwnerId(Long userId);
 
+    @EntityGraph(attributePaths = {"lastBooking", "nextBooking"})
     List<Item> findItemsByOwnerId(Long userId, Pageable pageable);
 
+    @EntityGraph(attributePaths = {"lastBooking", "nextBooking"})
+    @Query("select i from Item i where i.id = :id")
+    Optional<Item> findWithBookingPointersById(@Param("id") Long id);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select i from Item i where i.id = :id")
+    Optional<Item> findForUpdateById(@Param("id") Long id);
+
+    @Query("select i.id from Item i where i.nextBookingEnd <= :now")
+    List<Long> findIdsWithEndedNextBooking(@Param("now") LocalDateTime now);
+
     @Query("select i.available from Item i where i.id = ?1")
     boolean isItemAvailable(Long id);
 
     @Query("select i from Item i where i.available = true "
-            + "and upper(i.description) like upper(concat('%', ?1, '%')) "
-            + "or upper(i.name) like upper(concat('%', ?1, '%')) "
-            + "group by i.id")
+            + "and (upper(i.description) like upper(concat('%', ?1, '%')) "
+            + "or upper(i.name) like upper(concat('%', ?1, '%'))) "
+            + "order by i.id")
     List<Item> search(String text, Pageable pageable);
 
+    @Query(value = "select * from items i where i.is_available = true "
+            + "and i.search_vector @@ to_tsquery('russian', :query) "
+            + "order by ts_rank(i.search_vector, to_tsquery('russian', :query)) desc, i.id",
+            nativeQuery = true)
+    List<Item> searchFullText(@Param("query") String query, Pageable pageable);
+
     @Modifying(clearAutomatically = true)
     @Query("update Item i set i.available = :available where i.id = :id")
     void updateItemAvailableById(@Param("id") Long id, @Param("available") boolean available);
 
+    @Modifying
+    @Query("update Item i set i.commentCount = i.commentCount + 1 where i.id = :id")
+    void incrementCommentCount(@Param("id") Long id);
+
+    @Modifying
+    @Query("update Item i set i.bookingCount = i.bookingCount + 1 where i.id = :id")
+    void incrementBookingCount(@Param("id") Long id);
+
+    @Modifying
+    @Query("update Item i set i.nextBooking = :booking, i.nextBookingEnd = :end where i.id = :id "
+            + "and (i.nextBookingEnd is null or i.nextBookingEnd > :end)")
+    int offerNextBooking(@Param("id") Long id, @Param("booking") Booking booking, @Param("end") LocalDateTime end);
+
+    @Modifying
+    @Query("update Item i set i.lastBooking = :booking, i.lastBookingStart = :start where i.id = :id "
+            + "and (i.lastBookingStart is null or i.lastBookingStart < :start)")
+    int offerLastBooking(@Param("id") Long id, @Param("booking") Booking booking,
+                         @Param("start") LocalDateTime start);
+
+    @Modifying
+    @Query("update Item i set i.lastBooking = :last, i.lastBookingStart = :lastStart, "
+            + "i.nextBooking = :next, i.nextBookingEnd = :nextEnd where i.id = :id")
+    void setBookingPointers(@Param("id") Long id, @Param("last") Booking last,
+                            @Param("lastStart") LocalDateTime lastStart, @Param("next") Booking next,
+                            @Param("nextEnd") LocalDateTime nextEnd);
+
+    @Query("select distinct i from Item i left join fetch i.categories")
+    List<Item> findAllWithCategories();
+
+    @Query("select i.name from Item i")
+    List<String> findAllNames();
+
     List<Item> findAllByRequest_Id(Long requestId);
 
+    @Query("select new ru.practicum.shareit.item.dto.ItemResponseDto(i.id, i.name, i.description, "
+            + "i.photoUrl, i.price, i.available, i.request.id) "
+            + "from Item i where i.request.id in :requestIds order by i.id")
+    List<ItemResponseDto> findAnswersByRequestIdIn(@Param("requestIds") Collection<Long> requestIds);
+
+    @Query("select new ru.practicum.shareit.item.dto.ItemCategoryIdDto(i.id, c.id) "
+            + "from Item i join i.categories c where i.id in :itemIds")
+    List<ItemCategoryIdDto> findCategoryIdsByItemIdIn(@Param("itemIds") Collection<Long> itemIds);
+
     @Query("SELECT i FROM Item i JOIN i.categories c WHERE c.id = :catId")
     List<Item> getItemForCatId(@Param("catId") Long catId);
+
+    @Query("select new ru.practicum.shareit.item.dto.ItemResponseDto(i.id, i.name, i.description, "
+            + "i.photoUrl, i.price, i.available, r.id) "
+            + "from Item i join i.categories c left join i.request r "
+            + "where c.id = :catId and i.id > :afterId order by i.id")
+    List<ItemResponseDto> getItemForCatIdAfter(@Param("catId") Long catId, @Param("afterId") Long afterId,
+                                               Pageable pageable);
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query("select new ru.practicum.shareit.item.dto.ItemResponseDto(i.id, i.name, i.description, "
+            + "i.photoUrl, i.price, i.available, r.id) "
+            + "from Item i join i.categories c left join i.request r "
+            + "where c.id = :catId order by i.id")
+    Stream<ItemResponseDto> streamItemForCatId(@Param("catId") Long catId);
+
 }
@@ -0,0 +1,177 @@
+package ru.practicum.shareit.item.search;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.category.model.Category;
+import ru.practicum.shareit.category.repository.CategoryRepository;
+import ru.practicum.shareit.item.repository.ItemRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Префиксное дерево названий вещей и категорий для подсказок при наборе текста.
+ * Строится при старте приложения и обновляется при создании и изменении вещей и категорий,
+ * поэтому подсказки отдаются из памяти без обращения к базе.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ItemSuggestionIndex {
+
+    private final ItemRepository itemRepository;
+    private final CategoryRepository categoryRepository;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private Node root = new Node();
+
+    /**
+     * Перестраивает дерево целиком. Названия читаются под блокировкой записи: добавление, начатое
+     * во время перестройки, дождется ее и попадет уже в новое дерево.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            Node rebuilt = new Node();
+            itemRepository.findAllNames().forEach(name -> insert(rebuilt, name));
+            categoryRepository.findAll().stream()
+                    .map(Category::getTitle)
+                    .forEach(title -> insert(rebuilt, title));
+            root = rebuilt;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.debug("Индекс подсказок построен");
+    }
+
+    public void add(String phrase) {
+        lock.writeLock().lock();
+        try {
+            insert(root, phrase);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(String phrase) {
+        if (phrase == null || phrase.isBlank()) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            Node node = root;
+            List<Node> path = new ArrayList<>();
+            String key = normalize(phrase);
+            for (int i = 0; i < key.length(); i++) {
+                path.add(node);
+                node = node.children.get(key.charAt(i));
+                if (node == null) {
+                    return;
+                }
+            }
+            if (node.count == 0) {
+                return;
+            }
+            node.count--;
+            if (node.count == 0) {
+                node.phrase = null;
+            }
+            for (int i = key.length() - 1; i >= 0 && node.isEmpty(); i--) {
+                Node parent = path.get(i);
+                parent.children.remove(key.charAt(i));
+                node = parent;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void replace(String oldPhrase, String newPhrase) {
+        if (normalizeOrEmpty(oldPhrase).equals(normalizeOrEmpty(newPhrase))) {
+            return;
+        }
+        remove(oldPhrase);
+        add(newPhrase);
+    }
+
+    /**
+     * Возвращает фразы, начинающиеся с префикса, в алфавитном порядке.
+     *
+     * @param prefix префикс без учета регистра
+     * @param limit максимальное количество подсказок
+     * @return подсказки
+     */
+    public List<String> suggest(String prefix, int limit) {
+        List<String> result = new ArrayList<>();
+        if (prefix == null || prefix.isBlank() || limit <= 0) {
+            return result;
+        }
+        String key = normalize(prefix);
+        lock.readLock().lock();
+        try {
+            Node node = root;
+            for (int i = 0; i < key.length() && node != null; i++) {
+                node = node.children.get(key.charAt(i));
+            }
+            if (node != null) {
+                collect(node, limit, result);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return result;
+    }
+
+    private static void insert(Node root, String phrase) {
+        if (phrase == null || phrase.isBlank()) {
+            return;
+        }
+        Node node = root;
+        String key = normalize(phrase);
+        for (int i = 0; i < key.length(); i++) {
+            node = node.children.computeIfAbsent(key.charAt(i), c -> new Node());
+        }
+        if (node.count++ == 0) {
+            node.phrase = phrase.trim();
+        }
+    }
+
+    private static void collect(Node node, int limit, List<String> result) {
+        if (node.phrase != null) {
+            result.add(node.phrase);
+        }
+        for (Node child : node.children.values()) {
+            if (result.size() >= limit) {
+                return;
+            }
+            collect(child, limit, result);
+        }
+    }
+
+    private static String normalize(String phrase) {
+        return phrase.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static String normalizeOrEmpty(String phrase) {
+        return phrase == null ? "" : normalize(phrase);
+    }
+
+    private static class Node {
+        private final Map<Character, Node> children = new TreeMap<>();
+        private String phrase;
+        private int count;
+
+        private boolean isEmpty() {
+            return count == 0 && children.isEmpty();
+        }
+    }
+}
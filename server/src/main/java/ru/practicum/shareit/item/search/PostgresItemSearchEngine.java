@@ -0,0 +1,50 @@
+package ru.practicum.shareit.item.search;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Полнотекстовый поиск PostgreSQL по колонке {@code items.search_vector}
+ * (конфигурация russian, GIN-индекс, см. миграцию postgresql/V2). Результаты ранжируются по ts_rank,
+ * последнее слово запроса ищется по префиксу, чтобы поиск работал при наборе текста.
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "shareit.search.engine", havingValue = "postgres", matchIfMissing = true)
+public class PostgresItemSearchEngine implements ItemSearchEngine {
+
+    private final ItemRepository itemRepository;
+
+    @Override
+    public List<Item> search(String text, Pageable pageable) {
+        String query = toPrefixQuery(text);
+        if (query.isEmpty()) {
+            return List.of();
+        }
+        return itemRepository.searchFullText(query, pageable);
+    }
+
+    /**
+     * Преобразует пользовательский ввод в безопасный tsquery: слова соединяются через &amp;,
+     * все символы кроме букв и цифр отбрасываются, последнее слово ищется по префиксу.
+     */
+    public static String toPrefixQuery(String text) {
+        List<String> words = Arrays.stream(text.split("[^\\p{L}\\p{N}]+"))
+                .filter(word -> !word.isEmpty())
+                .collect(Collectors.toList());
+        if (words.isEmpty()) {
+            return "";
+        }
+        int last = words.size() - 1;
+        words.set(last, words.get(last) + ":*");
+        return String.join(" & ", words);
+    }
+}
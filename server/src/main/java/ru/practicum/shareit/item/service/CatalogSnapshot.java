@@ -0,0 +1,107 @@
+package ru.practicum.shareit.item.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.category.model.Category;
+import ru.practicum.shareit.item.dto.ItemResponseDto;
+import ru.practicum.shareit.item.mapper.ItemMapper;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.stream.Collectors;
+
+/**
+ * Готовый каталог вещей, сгруппированных по набору категорий.
+ * Списки групп неизменяемые: чтение группы - это разыменование ссылки, а изменение вещи заменяет
+ * копией только затронутые группы, не копируя остальной каталог. Изменения категорий перестраивают
+ * каталог целиком одним запросом.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CatalogSnapshot {
+
+    private final ItemRepository itemRepository;
+
+    private volatile State state = new State(new ConcurrentHashMap<>(), new ConcurrentHashMap<>());
+
+    public Map<String, List<ItemResponseDto>> get() {
+        return state.view;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true, propagation = Propagation.REQUIRES_NEW)
+    public synchronized void rebuild() {
+        Map<String, List<ItemResponseDto>> groups = new HashMap<>();
+        ConcurrentMap<Long, String> keys = new ConcurrentHashMap<>();
+        for (Item item : itemRepository.findAllWithCategories()) {
+            String key = groupKey(item.getCategories());
+            groups.computeIfAbsent(key, k -> new ArrayList<>()).add(ItemMapper.itemToItemResponseDto(item));
+            keys.put(item.getId(), key);
+        }
+        ConcurrentMap<String, List<ItemResponseDto>> snapshot = new ConcurrentHashMap<>();
+        groups.forEach((key, items) -> snapshot.put(key, Collections.unmodifiableList(items)));
+        state = new State(snapshot, keys);
+        log.debug("Снимок каталога перестроен: {} групп", groups.size());
+    }
+
+    /**
+     * Добавляет карточку в каталог или заменяет уже имеющуюся карточку этой вещи. При переносе
+     * вещи в другую группу читатель может недолго видеть ее в обеих группах.
+     *
+     * @param dto карточка вещи
+     * @param key группа вещи, см. {@link #groupKey(Collection)}
+     */
+    public synchronized void put(ItemResponseDto dto, String key) {
+        State current = state;
+        String previousKey = current.keys.put(dto.getId(), key);
+
+        List<ItemResponseDto> items = new ArrayList<>(current.groups.getOrDefault(key, List.of()));
+        items.removeIf(existing -> existing.getId().equals(dto.getId()));
+        items.add(dto);
+        current.groups.put(key, Collections.unmodifiableList(items));
+
+        if (previousKey != null && !previousKey.equals(key)) {
+            List<ItemResponseDto> previous = new ArrayList<>(current.groups.get(previousKey));
+            previous.removeIf(existing -> existing.getId().equals(dto.getId()));
+            if (previous.isEmpty()) {
+                current.groups.remove(previousKey);
+            } else {
+                current.groups.put(previousKey, Collections.unmodifiableList(previous));
+            }
+        }
+    }
+
+    public static String groupKey(Collection<Category> categories) {
+        return categories.stream()
+                .sorted(Comparator.comparing(Category::getId))
+                .map(Category::getTitle)
+                .collect(Collectors.joining(", ", "(", ")"));
+    }
+
+    private static class State {
+        private final ConcurrentMap<String, List<ItemResponseDto>> groups;
+        private final Map<String, List<ItemResponseDto>> view;
+        private final ConcurrentMap<Long, String> keys;
+
+        private State(ConcurrentMap<String, List<ItemResponseDto>> groups, ConcurrentMap<Long, String> keys) {
+            this.groups = groups;
+            this.view = Collections.unmodifiableMap(groups);
+            this.keys = keys;
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package ru.practicum.shareit.item.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Проверка права пользователя оставить отзыв на вещь: у него должно быть завершившееся
+ * подтвержденное бронирование этой вещи. Право с момента окончания первого такого бронирования
+ * уже не теряется, поэтому найденный момент кешируется на пользователя, и повторные отзывы
+ * обходятся без запроса к базе. Кеш ограничен по числу пользователей и вещей каждого пользователя,
+ * вытесняются давно не использованные записи. Отказы не кешируются.
+ */
+@Slf4j
+@Component
+public class CommentEligibility {
+
+    private final BookingRepository bookingRepository;
+    private final int maxUsers;
+    private final int maxItemsPerUser;
+    private final Map<Long, Map<Long, LocalDateTime>> eligibleSince;
+
+    public CommentEligibility(BookingRepository bookingRepository,
+                              @Value("${shareit.item.comment-eligibility.max-users:10000}") int maxUsers,
+                              @Value("${shareit.item.comment-eligibility.items-per-user:16}") int maxItemsPerUser) {
+        this.bookingRepository = bookingRepository;
+        this.maxUsers = maxUsers;
+        this.maxItemsPerUser = maxItemsPerUser;
+        this.eligibleSince = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Map<Long, LocalDateTime>> eldest) {
+                return size() > CommentEligibility.this.maxUsers;
+            }
+        };
+    }
+
+    /**
+     * @param userId идентификатор пользователя
+     * @param itemId идентификатор вещи
+     * @param now текущее время
+     * @return true, если подтвержденное бронирование вещи пользователем завершилось до now
+     */
+    public boolean isEligible(Long userId, Long itemId, LocalDateTime now) {
+        LocalDateTime since = cached(userId, itemId);
+        if (since != null && since.isBefore(now)) {
+            return true;
+        }
+        List<LocalDateTime> ends = bookingRepository.findEarliestEnd(userId, itemId, BookingStatus.APPROVED,
+                PageRequest.of(0, 1));
+        if (ends.isEmpty() || !ends.get(0).isBefore(now)) {
+            log.debug("У пользователя с id = {} нет завершившихся бронирований вещи с id = {}", userId, itemId);
+            return false;
+        }
+        put(userId, itemId, ends.get(0));
+        return true;
+    }
+
+    private synchronized LocalDateTime cached(Long userId, Long itemId) {
+        Map<Long, LocalDateTime> items = eligibleSince.get(userId);
+        return items == null ? null : items.get(itemId);
+    }
+
+    private synchronized void put(Long userId, Long itemId, LocalDateTime since) {
+        eligibleSince.computeIfAbsent(userId, id -> new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, LocalDateTime> eldest) {
+                return size() > maxItemsPerUser;
+            }
+        }).put(itemId, since);
+    }
+}
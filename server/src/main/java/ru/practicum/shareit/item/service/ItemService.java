@@ -4,6 +4,8 @@ import org.springframework.data.domain.Pageable;
 import ru.practicum.shareit.category.dto.CategoryDto;
 import ru.practicum.shareit.item.dto.*;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.List;
 import java.util.Map;
 
@@ -18,9 +20,19 @@ public interface ItemService {
 
     List<ItemDto> searchItem(String text, Pageable pageable);
 
+    List<String> suggest(String prefix, int size);
+
     CommentDto makeComment(Long itemId, CommentUpdateDto text);
 
+    List<CommentDto> getComments(Long itemId, Long beforeId, int size);
+
     List<ItemResponseDto> getItemForCatId(Long catId);
 
+    List<ItemResponseDto> getItemForCatId(Long catId, Long afterId, int size);
+
+    void writeItemsForCatId(Long catId, OutputStream out) throws IOException;
+
+    void writeCatalog(OutputStream out) throws IOException;
+
     Map<String, List<ItemResponseDto>> getAll();
 }
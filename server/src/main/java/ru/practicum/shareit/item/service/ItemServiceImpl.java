@@ -1,15 +1,18 @@
 package ru.practicum.shareit.item.service;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.shareit.booking.repository.BookingRepository;
 import ru.practicum.shareit.booking.model.Booking;
-import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.service.ItemBookingPointers;
 import ru.practicum.shareit.category.model.Category;
-import ru.practicum.shareit.category.repository.CategoryRepository;
+import ru.practicum.shareit.category.service.CategoryRegistry;
 import ru.practicum.shareit.exception.IdNotFoundException;
 import ru.practicum.shareit.exception.ValidateException;
 import ru.practicum.shareit.item.dto.*;
@@ -19,15 +22,21 @@ import ru.practicum.shareit.item.model.Comment;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.repository.CommentRepository;
 import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.search.ItemSearchEngine;
+import ru.practicum.shareit.item.search.ItemSuggestionIndex;
 import ru.practicum.shareit.request.repository.ItemRequestRepository;
 import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.user.repository.UserRepository;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.service.UserService;
+import ru.practicum.shareit.utils.TransactionHooks;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.time.LocalDateTime;
 import java.util.*;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
@@ -40,8 +49,17 @@ public class ItemServiceImpl implements ItemService {
     private final CommentRepository commentRepository;
     private final BookingRepository bookingRepository;
     private final ItemRequestRepository requestRepository;
-    private final CategoryRepository categoryRepository;
+    private final CategoryRegistry categoryRegistry;
     private final UserService userService;
+    private final ItemSearchEngine itemSearchEngine;
+    private final ItemSuggestionIndex suggestionIndex;
+    private final CatalogSnapshot catalogSnapshot;
+    private final CommentEligibility commentEligibility;
+    private final ItemBookingPointers itemBookingPointers;
+    private final ObjectMapper objectMapper;
+
+    private static final int STREAM_FLUSH_ROWS = 500;
+    private static final int COMMENT_PREVIEW_SIZE = 10;
 
     /**
      * Метод создания карточки товара. Существует несколько сценариев.
@@ -58,24 +76,28 @@ public class ItemServiceImpl implements ItemService {
         log.debug("Вещь создана");
         User user = userService.getAuthenticatedUser();
 
-        Set<Category> categories = new HashSet<>();
-
-        for (Long catId : itemDto.getCatIds()) {
-            Category category = categoryRepository.findById(catId)
-                    .orElseThrow(() -> new IdNotFoundException(String.format("категория с id = %d не найдена", catId)));
-            categories.add(category);
-        }
+        Set<Category> categories = categoryRegistry.resolve(itemDto.getCatIds());
 
+        Item item;
         if (itemDto.getRequestId() != null) {
             ItemRequest itemRequest = requestRepository.findById(itemDto.getRequestId())
                     .orElseThrow(() -> new IdNotFoundException("Запрос с id = " + itemDto.getRequestId()
                             + "не найден"));
-            return ItemMapper.itemToItemDto(itemRepository.save(ItemMapper
-                    .itemDtoToItemWithRequest(itemDto, categories, user, itemRequest)));
+            item = itemRepository.save(ItemMapper
+                    .itemDtoToItemWithRequest(itemDto, categories, user, itemRequest));
+        } else {
+            item = itemRepository.save(ItemMapper
+                    .itemDtoToItemWithoutRequest(itemDto, categories, user));
         }
 
-        return ItemMapper.itemToItemDto(itemRepository.save(ItemMapper
-                .itemDtoToItemWithoutRequest(itemDto, categories, user)));
+        String name = item.getName();
+        ItemResponseDto catalogItem = ItemMapper.itemToItemResponseDto(item);
+        String catalogKey = CatalogSnapshot.groupKey(categories);
+        TransactionHooks.afterCommit(() -> {
+            suggestionIndex.add(name);
+            catalogSnapshot.put(catalogItem, catalogKey);
+        });
+        return ItemMapper.itemToItemDto(item);
     }
 
     @Override
@@ -88,6 +110,7 @@ public class ItemServiceImpl implements ItemService {
         if (!user.getId().equals(item.getOwner().getId())) {
             throw new IdNotFoundException("Пользователь с id = " + user.getId() + " не найден");
         }
+        String oldName = item.getName();
         if (itemDto.getName() != null) {
             item.setName(itemDto.getName());
         }
@@ -104,88 +127,89 @@ public class ItemServiceImpl implements ItemService {
             item.setAvailable(itemDto.getAvailable());
         }
 
-        return ItemMapper.itemToItemDto(itemRepository.save(item));
+        Item saved = itemRepository.save(item);
+        String newName = saved.getName();
+        ItemResponseDto catalogItem = ItemMapper.itemToItemResponseDto(saved);
+        String catalogKey = CatalogSnapshot.groupKey(saved.getCategories());
+        TransactionHooks.afterCommit(() -> {
+            suggestionIndex.replace(oldName, newName);
+            catalogSnapshot.put(catalogItem, catalogKey);
+        });
+        return ItemMapper.itemToItemDto(saved);
     }
 
     @Override
     public Map<String, List<ItemResponseDto>> getAll() {
-        List<Item> items = itemRepository.findAll();
-
-        Map<String, List<ItemResponseDto>> result = new HashMap<>();
-
-        for (Item item : items) {
-            ItemResponseDto itemDto = ItemMapper.itemToItemResponseDto(item);
-
-            // Получаем список названий категорий для этого товара
-            String categories = item.getCategories().stream()
-                    .map(category -> getCategoryTitleById(category.getId()))
-                    .collect(Collectors.joining(", ", "(", ")"));
-
-            // Добавляем товар в результат для каждой категории
-            result.computeIfAbsent(categories, k -> new ArrayList<>()).add(itemDto);
-        }
-
-        return result;
+        return catalogSnapshot.get();
     }
 
     @Override
     public ItemFullDto getByIdItem(Long itemId) {
         log.debug("Вещь с id = {} получена", itemId);
-        Item item = itemRepository.findById(itemId)
+        Item item = itemRepository.findWithBookingPointersById(itemId)
                 .orElseThrow(() -> new IdNotFoundException("Вещь с id = " + itemId + " не найдена"));
 
         User user = userService.getAuthenticatedUser();
 
-        List<Booking> bookingList = bookingRepository.findBookingsByItemId(item.getId());
-        Booking lastBooking = null;
-        Booking nextBooking = null;
-        if (bookingList.size() == 1) {
-            lastBooking = getNextBooking(bookingList);
-        } else if (bookingList.stream().map(Booking::getBooker)
-                .map(User::getId)
-                .noneMatch(it -> it.equals(user.getId()))
-        ) {
-            lastBooking = getLastBooking(bookingList);
-            nextBooking = getNextBooking(bookingList);
-
-        }
-        List<Comment> comments = commentRepository.findAllByItemId(item.getId());
-        List<CommentDto> commentsDTO = comments.stream()
-                .map(CommentMapper::commentToCommentDTO)
-                .collect(Collectors.toList());
-        return ItemMapper.itemToItemFullDto(item, commentsDTO, lastBooking, nextBooking);
+        List<CommentDto> commentsDTO = findComments(item.getId(), null, COMMENT_PREVIEW_SIZE);
+        return toItemFullDto(item, commentsDTO, user, LocalDateTime.now());
     }
 
+    /**
+     * Список вещей владельца собирается фиксированным числом запросов: страница вещей вместе
+     * с последним и следующим бронированием и последние комментарии сразу для всех вещей страницы:
+     * не больше COMMENT_PREVIEW_SIZE на вещь, как и в карточке вещи.
+     *
+     * @param pageable параметры страницы
+     * @return вещи владельца с последним и следующим бронированием и комментариями
+     */
     @Override
     public List<ItemFullDto> findAllItemsByOwnerId(Pageable pageable) {
         User user = userService.getAuthenticatedUser();
 
         List<Item> items = itemRepository.findItemsByOwnerId(user.getId(), pageable);
+        if (items.isEmpty()) {
+            return List.of();
+        }
+        Set<Long> itemIds = items.stream()
+                .map(Item::getId)
+                .collect(Collectors.toSet());
+
+        List<Long> commentIds = commentRepository.findLatestIdsByItemIdIn(itemIds, COMMENT_PREVIEW_SIZE);
+        Map<Long, List<CommentDto>> commentsByItemId = commentIds.isEmpty() ? Map.of()
+                : commentRepository.findAllWithUserByIdIn(commentIds).stream()
+                .collect(Collectors.groupingBy(comment -> comment.getItem().getId(),
+                        Collectors.mapping(CommentMapper::commentToCommentDTO, Collectors.toList())));
+
+        LocalDateTime now = LocalDateTime.now();
         return items.stream()
-                .map(item -> getByIdItem(item.getId()))
-                .sorted(Comparator.comparing(ItemFullDto::getId))
+                .sorted(Comparator.comparing(Item::getId))
+                .map(item -> toItemFullDto(item,
+                        commentsByItemId.getOrDefault(item.getId(), List.of()),
+                        user, now))
                 .collect(Collectors.toList());
     }
 
     @Override
     public List<ItemDto> searchItem(String text, Pageable pageable) {
         log.debug("Подходящие вещи найдены");
-        if (text.isEmpty()) {
+        if (text.isBlank()) {
             return List.of();
         }
 
-        return itemRepository.search(text, pageable).stream()
-                .distinct()
+        return itemSearchEngine.search(text, pageable).stream()
                 .map(ItemMapper::itemToItemDto)
                 .collect(Collectors.toList());
     }
 
     @Override
-    public List<ItemResponseDto> getItemForCatId(Long catId) {
+    public List<String> suggest(String prefix, int size) {
+        return suggestionIndex.suggest(prefix, size);
+    }
 
-        categoryRepository.findById(catId)
-                .orElseThrow(() -> new IdNotFoundException(String
-                        .format("Извините такой категории с id = %d не существует", catId)));
+    @Override
+    public List<ItemResponseDto> getItemForCatId(Long catId) {
+        checkCategoryExists(catId);
 
         List<Item> items = itemRepository.getItemForCatId(catId);
 
@@ -194,6 +218,69 @@ public class ItemServiceImpl implements ItemService {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Страница вещей категории по курсору: возвращает вещи с id больше {@code afterId}
+     * в порядке возрастания id, поэтому стоимость любой страницы одинакова.
+     *
+     * @param catId идентификатор категории
+     * @param afterId id последней вещи предыдущей страницы или null для первой страницы
+     * @param size размер страницы
+     * @return вещи категории
+     */
+    @Override
+    public List<ItemResponseDto> getItemForCatId(Long catId, Long afterId, int size) {
+        checkCategoryExists(catId);
+
+        return itemRepository.getItemForCatIdAfter(catId, afterId == null ? 0L : afterId,
+                PageRequest.of(0, size));
+    }
+
+    /**
+     * Потоково пишет JSON-массив вещей категории, читая их курсором базы данных.
+     * Расход памяти не зависит от размера категории.
+     */
+    @Override
+    public void writeItemsForCatId(Long catId, OutputStream out) throws IOException {
+        checkCategoryExists(catId);
+
+        try (Stream<ItemResponseDto> items = itemRepository.streamItemForCatId(catId);
+             JsonGenerator generator = createGenerator(out)) {
+            generator.writeStartArray();
+            int rows = 0;
+            for (Iterator<ItemResponseDto> it = items.iterator(); it.hasNext(); ) {
+                generator.writeObject(it.next());
+                if (++rows % STREAM_FLUSH_ROWS == 0) {
+                    generator.flush();
+                }
+            }
+            generator.writeEndArray();
+        }
+    }
+
+    /**
+     * Потоково пишет каталог в виде JSON-объекта с теми же группами, что и {@link #getAll()}.
+     * Каталог уже собран в {@link CatalogSnapshot}, поэтому здесь он только сериализуется
+     * по частям, без промежуточной копии ответа в памяти.
+     */
+    @Override
+    public void writeCatalog(OutputStream out) throws IOException {
+        try (JsonGenerator generator = createGenerator(out)) {
+            generator.writeStartObject();
+            int count = 0;
+            for (Map.Entry<String, List<ItemResponseDto>> group : catalogSnapshot.get().entrySet()) {
+                generator.writeArrayFieldStart(group.getKey());
+                for (ItemResponseDto item : group.getValue()) {
+                    generator.writeObject(item);
+                    if (++count % STREAM_FLUSH_ROWS == 0) {
+                        generator.flush();
+                    }
+                }
+                generator.writeEndArray();
+            }
+            generator.writeEndObject();
+        }
+    }
+
     @Override
     @Transactional
     public CommentDto makeComment(Long itemId, CommentUpdateDto text) {
@@ -202,8 +289,7 @@ public class ItemServiceImpl implements ItemService {
         Item item = itemRepository.findById(itemId)
                 .orElseThrow(() -> new IdNotFoundException("Вещь с id = " + itemId + " не найдена"));
 
-        if (!bookingRepository.existsBookingByBookerIdAndStatus(user.getId(),
-                BookingStatus.APPROVED.name())) {
+        if (!commentEligibility.isEligible(user.getId(), itemId, LocalDateTime.now())) {
             throw new ValidateException();
         }
         Comment comment = commentRepository.save(Comment.builder()
@@ -211,29 +297,66 @@ public class ItemServiceImpl implements ItemService {
                 .item(item)
                 .user(user)
                 .build());
+        itemRepository.incrementCommentCount(itemId);
         return CommentMapper.commentToCommentDTO(comment);
     }
 
-    private Booking getNextBooking(List<Booking> bookingList) {
-        return bookingList.stream()
-                .filter(booking -> booking.getStatus().equals(BookingStatus.APPROVED.name()))
-                .sorted(Comparator.comparing(Booking::getEnd))
-                .filter(booking -> booking.getEnd().isAfter(LocalDateTime.now()))
-                .findFirst()
-                .orElse(null);
+    /**
+     * Страница комментариев вещи от новых к старым: возвращает комментарии с id меньше
+     * {@code beforeId}, поэтому стоимость любой страницы одинакова.
+     *
+     * @param itemId идентификатор вещи
+     * @param beforeId id последнего комментария предыдущей страницы или null для первой страницы
+     * @param size размер страницы
+     * @return комментарии вещи
+     */
+    @Override
+    public List<CommentDto> getComments(Long itemId, Long beforeId, int size) {
+        if (!itemRepository.existsById(itemId)) {
+            throw new IdNotFoundException("Вещь с id = " + itemId + " не найдена");
+        }
+        return findComments(itemId, beforeId, size);
+    }
+
+    private List<CommentDto> findComments(Long itemId, Long beforeId, int size) {
+        return commentRepository.findItemPageBefore(itemId, beforeId == null ? Long.MAX_VALUE : beforeId,
+                        PageRequest.of(0, size)).stream()
+                .map(CommentMapper::commentToCommentDTO)
+                .collect(Collectors.toList());
     }
 
-    private Booking getLastBooking(List<Booking> bookingList) {
-        return bookingList.stream()
-                .filter(booking -> booking.getStatus().equals(BookingStatus.APPROVED.name()))
-                .filter(booking -> booking.getEnd().isBefore(LocalDateTime.now()))
-                .max(Comparator.comparing(Booking::getStart))
-                .orElse(null);
+    /**
+     * Последнее и следующее бронирование берутся из ссылок вещи на бронирования. У вещи с единственным бронированием
+     * следующее бронирование показывается как последнее, а пользователю, бронировавшему вещь,
+     * бронирования не показываются.
+     */
+    private ItemFullDto toItemFullDto(Item item, List<CommentDto> comments, User user, LocalDateTime now) {
+        Booking[] lastAndNext = itemBookingPointers.resolve(item, now);
+        Booking lastBooking = lastAndNext[0];
+        Booking nextBooking = lastAndNext[1];
+        if (lastBooking == null && nextBooking == null) {
+            return ItemMapper.itemToItemFullDto(item, comments, null, null);
+        }
+        if (item.getBookingCount() != null && item.getBookingCount() == 1) {
+            return ItemMapper.itemToItemFullDto(item, comments, nextBooking, null);
+        }
+        // владелец свою вещь забронировать не может, поэтому для него проверка не нужна
+        if (!user.getId().equals(item.getOwner().getId())
+                && bookingRepository.existsByItemIdAndBookerId(item.getId(), user.getId())) {
+            return ItemMapper.itemToItemFullDto(item, comments, null, null);
+        }
+        return ItemMapper.itemToItemFullDto(item, comments, lastBooking, nextBooking);
     }
 
-    private String getCategoryTitleById(Long categoryId) {
-        Optional<Category> categoryOptional = categoryRepository.findById(categoryId);
+    private JsonGenerator createGenerator(OutputStream out) throws IOException {
+        return objectMapper.getFactory().createGenerator(out)
+                .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    }
 
-        return categoryOptional.map(Category::getTitle).orElse(null);
+    private void checkCategoryExists(Long catId) {
+        if (!categoryRegistry.exists(catId)) {
+            throw new IdNotFoundException(String
+                    .format("Извините такой категории с id = %d не существует", catId));
+        }
     }
 }
@@ -4,7 +4,9 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.AllArgsConstructor;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import ru.practicum.shareit.request.dto.ItemRequestCursor;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 import ru.practicum.shareit.request.dto.RequestDto;
 import ru.practicum.shareit.request.service.ItemRequestService;
@@ -17,6 +19,8 @@ import java.util.List;
 @AllArgsConstructor
 @Tag(name = "Request Controller", description = "Управление запросами")
 public class ItemRequestController {
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
     private final ItemRequestService itemRequestService;
 
     @PostMapping
@@ -30,12 +34,25 @@ public class ItemRequestController {
         return itemRequestService.getSelfRequests();
     }
 
+    /**
+     * Чужие запросы от новых к старым. Первая страница запрашивается через from/size, следующие - через
+     * курсор {@code after} из заголовка {@value #NEXT_CURSOR_HEADER} предыдущего ответа.
+     */
     @GetMapping("/all")
-    public List<ItemRequestDto> getAllRequests(
+    public ResponseEntity<List<ItemRequestDto>> getAllRequests(
             @RequestParam(required = false, defaultValue = "0") final Integer from,
-            @RequestParam(required = false, defaultValue = "10") final Integer size
+            @RequestParam(required = false, defaultValue = "10") final Integer size,
+            @RequestParam(required = false) final String after
     ) {
-        return itemRequestService.getAll(PageRequest.of(from, size, Sort.by("created").descending()));
+        List<ItemRequestDto> result = after != null
+                ? itemRequestService.getAll(ItemRequestCursor.decode(after), size)
+                : itemRequestService.getAll(PageRequest.of(from, size, Sort.by("created").descending()));
+        if (result.isEmpty() || result.size() < size) {
+            return ResponseEntity.ok(result);
+        }
+        return ResponseEntity.ok()
+                .header(NEXT_CURSOR_HEADER, ItemRequestCursor.of(result.get(result.size() - 1)).encode())
+                .body(result);
     }
 
     @GetMapping("/{requestId}")
@@ -0,0 +1,19 @@
+package ru.practicum.shareit.request.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Запрос вещи в ленте чужих запросов: поля для ответа и автор, чьи запросы лента пропускает
+ */
+@Getter
+@AllArgsConstructor
+public class ItemRequestFeedDto {
+
+    private Long id;
+    private Long requesterId;
+    private String description;
+    private LocalDateTime created;
+}
@@ -2,44 +2,43 @@ package ru.practicum.shareit.request.mapper;
 
 import lombok.experimental.UtilityClass;
 import ru.practicum.shareit.item.dto.ItemDto;
-import ru.practicum.shareit.item.mapper.ItemMapper;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
+import ru.practicum.shareit.request.dto.ItemRequestFeedDto;
 import ru.practicum.shareit.request.dto.RequestDto;
 import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.user.model.User;
 
-import java.util.Collections;
 import java.util.List;
-import java.util.stream.Collectors;
 
 @UtilityClass
 public class ItemRequestMapper {
 
-    public static ItemRequestDto itemRequestToItemRequestDTO(ItemRequest entity) {
+    public static ItemRequestDto itemRequestToItemRequestDTO(ItemRequest entity, List<ItemDto> items) {
         return ItemRequestDto.builder()
                 .id(entity.getId())
                 .description(entity.getDescription())
                 .created(entity.getCreated())
-                .items(getItems(entity))
+                .items(items)
                 .build();
     }
 
+    public static ItemRequestDto itemRequestFeedDtoToItemRequestDto(ItemRequestFeedDto request) {
+        return ItemRequestDto.builder()
+                .id(request.getId())
+                .description(request.getDescription())
+                .created(request.getCreated())
+                .build();
+    }
+
+    public static ItemRequestFeedDto itemRequestToItemRequestFeedDto(ItemRequest entity) {
+        return new ItemRequestFeedDto(entity.getId(), entity.getRequester().getId(), entity.getDescription(),
+                entity.getCreated());
+    }
+
     public static ItemRequest itemRequestDtoToItemRequest(User user, RequestDto requestDTO) {
         return ItemRequest.builder()
                 .description(requestDTO.getDescription())
                 .requester(user)
                 .build();
     }
-
-    private static List<ItemDto> getItems(ItemRequest entity) {
-        if (entity.getItems() == null) {
-            return Collections.emptyList();
-        }
-        if (entity.getItems().isEmpty()) {
-            return Collections.emptyList();
-        }
-        return entity.getItems().stream()
-                .map(ItemMapper::itemToItemDto)
-                .collect(Collectors.toList());
-    }
 }
@@ -3,16 +3,31 @@ package ru.practicum.shareit.request.repository;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import ru.practicum.shareit.request.dto.ItemRequestFeedDto;
 import ru.practicum.shareit.request.model.ItemRequest;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
 public interface ItemRequestRepository extends JpaRepository<ItemRequest, Long> {
 
-    @Query("select i from ItemRequest i where i.requester.id != ?1 order by i.created DESC")
-    List<ItemRequest> findAllWithoutRequesterId(Long userId, Pageable pageable);
+    @Query("select new ru.practicum.shareit.request.dto.ItemRequestFeedDto(r.id, r.requester.id, r.description, "
+            + "r.created) from ItemRequest r order by r.created desc, r.id desc")
+    List<ItemRequestFeedDto> findRecent(Pageable pageable);
+
+    @Query("select new ru.practicum.shareit.request.dto.ItemRequestFeedDto(r.id, r.requester.id, r.description, "
+            + "r.created) from ItemRequest r where r.requester.id <> :userId order by r.created desc, r.id desc")
+    List<ItemRequestFeedDto> findFeedPage(@Param("userId") Long userId, Pageable pageable);
+
+    @Query("select new ru.practicum.shareit.request.dto.ItemRequestFeedDto(r.id, r.requester.id, r.description, "
+            + "r.created) from ItemRequest r where r.requester.id <> :userId "
+            + "and (r.created < :created or (r.created = :created and r.id < :id)) "
+            + "order by r.created desc, r.id desc")
+    List<ItemRequestFeedDto> findFeedPageAfter(@Param("userId") Long userId, @Param("created") LocalDateTime created,
+                                               @Param("id") Long id, Pageable pageable);
 
     List<ItemRequest> findAllByRequesterId(Long requesterId);
 }
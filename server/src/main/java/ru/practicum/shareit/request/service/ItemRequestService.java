@@ -1,6 +1,7 @@
 package ru.practicum.shareit.request.service;
 
 import org.springframework.data.domain.Pageable;
+import ru.practicum.shareit.request.dto.ItemRequestCursor;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 import ru.practicum.shareit.request.dto.RequestDto;
 
@@ -14,5 +15,7 @@ public interface ItemRequestService {
 
     List<ItemRequestDto> getAll(Pageable pageable);
 
+    List<ItemRequestDto> getAll(ItemRequestCursor after, int size);
+
     ItemRequestDto get(Long id);
 }
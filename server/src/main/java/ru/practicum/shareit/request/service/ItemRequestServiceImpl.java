@@ -2,20 +2,34 @@ package ru.practicum.shareit.request.service;
 
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.shareit.exception.IdNotFoundException;
+import ru.practicum.shareit.item.dto.ItemCategoryIdDto;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemResponseDto;
+import ru.practicum.shareit.item.mapper.ItemMapper;
+import ru.practicum.shareit.item.repository.ItemRepository;
 import ru.practicum.shareit.request.repository.ItemRequestRepository;
+import ru.practicum.shareit.request.dto.ItemRequestCursor;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
+import ru.practicum.shareit.request.dto.ItemRequestFeedDto;
 import ru.practicum.shareit.request.dto.RequestDto;
 import ru.practicum.shareit.request.mapper.ItemRequestMapper;
 import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.user.repository.UserRepository;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.service.UserService;
+import ru.practicum.shareit.utils.TransactionHooks;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
@@ -26,6 +40,8 @@ public class ItemRequestServiceImpl implements ItemRequestService {
 
     private final ItemRequestRepository itemRequestRepository;
     private final UserService userService;
+    private final ItemRepository itemRepository;
+    private final RecentRequestFeed recentRequestFeed;
 
     /**
      * Метод создания запроса необходимиой вещи
@@ -41,8 +57,10 @@ public class ItemRequestServiceImpl implements ItemRequestService {
         User user = userService.getAuthenticatedUser();
 
         var result = itemRequestRepository.save(ItemRequestMapper.itemRequestDtoToItemRequest(user, requestDTO));
+        ItemRequestFeedDto feedEntry = ItemRequestMapper.itemRequestToItemRequestFeedDto(result);
+        TransactionHooks.afterCommit(() -> recentRequestFeed.append(feedEntry));
         log.debug("Запрос успешно прошел проверку");
-        return ItemRequestMapper.itemRequestToItemRequestDTO(result);
+        return ItemRequestMapper.itemRequestToItemRequestDTO(result, new ArrayList<>());
     }
 
     @Override
@@ -50,21 +68,30 @@ public class ItemRequestServiceImpl implements ItemRequestService {
         log.debug("Получен запрос получение самого же itemRequest");
         User user = userService.getAuthenticatedUser();
 
-        var result = itemRequestRepository.findAllByRequesterId(user.getId());
-        return result.stream()
-                .map(ItemRequestMapper::itemRequestToItemRequestDTO)
-                .collect(Collectors.toList());
+        return attachItems(itemRequestRepository.findAllByRequesterId(user.getId()).stream()
+                .map(request -> ItemRequestMapper.itemRequestToItemRequestDTO(request, null))
+                .collect(Collectors.toList()));
     }
 
     @Override
     public List<ItemRequestDto> getAll(Pageable pageable) {
         log.debug("Получен запрос получение всех itemRequest");
         User user = userService.getAuthenticatedUser();
-        List<ItemRequest> itemRequests = itemRequestRepository.findAllWithoutRequesterId(user.getId(),
-                pageable);
-        return itemRequests.stream()
-                .map(ItemRequestMapper::itemRequestToItemRequestDTO)
-                .collect(Collectors.toList());
+        List<ItemRequestFeedDto> page = recentRequestFeed.page(user.getId(), null, pageable.getOffset(),
+                        pageable.getPageSize())
+                .orElseGet(() -> itemRequestRepository.findFeedPage(user.getId(),
+                        PageRequest.of(pageable.getPageNumber(), pageable.getPageSize())));
+        return toItemRequestDtos(page);
+    }
+
+    @Override
+    public List<ItemRequestDto> getAll(ItemRequestCursor after, int size) {
+        log.debug("Получен запрос получение всех itemRequest после {}", after.getCreated());
+        User user = userService.getAuthenticatedUser();
+        List<ItemRequestFeedDto> page = recentRequestFeed.page(user.getId(), after, 0, size)
+                .orElseGet(() -> itemRequestRepository.findFeedPageAfter(user.getId(), after.getCreated(),
+                        after.getId(), PageRequest.of(0, size)));
+        return toItemRequestDtos(page);
     }
 
     @Override
@@ -73,7 +100,50 @@ public class ItemRequestServiceImpl implements ItemRequestService {
 
         ItemRequest request = itemRequestRepository.findById(id)
                 .orElseThrow(() -> new IdNotFoundException("Запрашиваемая вещь не с id = " + id + " не найдена"));
-        return ItemRequestMapper.itemRequestToItemRequestDTO(request);
+        return attachItems(List.of(ItemRequestMapper.itemRequestToItemRequestDTO(request, null))).get(0);
+    }
+
+    private List<ItemRequestDto> toItemRequestDtos(List<ItemRequestFeedDto> page) {
+        return attachItems(page.stream()
+                .map(ItemRequestMapper::itemRequestFeedDtoToItemRequestDto)
+                .collect(Collectors.toList()));
+    }
+
+    /**
+     * Собирает запросы вместе с ответившими на них вещами фиксированным числом запросов к базе:
+     * вещи всех запросов страницы и категории всех этих вещей загружаются одним запросом каждые.
+     *
+     * @param requests запросы вещей без вещей
+     * @return те же запросы с заполненными вещами
+     */
+    private List<ItemRequestDto> attachItems(List<ItemRequestDto> requests) {
+        if (requests.isEmpty()) {
+            return requests;
+        }
+        List<Long> requestIds = requests.stream()
+                .map(ItemRequestDto::getId)
+                .collect(Collectors.toList());
+        List<ItemResponseDto> items = itemRepository.findAnswersByRequestIdIn(requestIds);
+
+        Map<Long, Set<Long>> catIds = new HashMap<>();
+        if (!items.isEmpty()) {
+            List<Long> itemIds = items.stream()
+                    .map(ItemResponseDto::getId)
+                    .collect(Collectors.toList());
+            for (ItemCategoryIdDto link : itemRepository.findCategoryIdsByItemIdIn(itemIds)) {
+                catIds.computeIfAbsent(link.getItemId(), id -> new HashSet<>()).add(link.getCatId());
+            }
+        }
+
+        Map<Long, List<ItemDto>> itemsByRequest = new HashMap<>();
+        for (ItemResponseDto item : items) {
+            Set<Long> itemCatIds = catIds.getOrDefault(item.getId(), new HashSet<>());
+            itemsByRequest.computeIfAbsent(item.getRequestId(), id -> new ArrayList<>())
+                    .add(ItemMapper.itemResponseDtoToItemDto(item, itemCatIds));
+        }
+        requests.forEach(request -> request.setItems(itemsByRequest.getOrDefault(request.getId(),
+                new ArrayList<>())));
+        return requests;
     }
 
 }
@@ -0,0 +1,166 @@
+package ru.practicum.shareit.request.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.request.dto.ItemRequestCursor;
+import ru.practicum.shareit.request.dto.ItemRequestFeedDto;
+import ru.practicum.shareit.request.repository.ItemRequestRepository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Общая для всех пользователей лента последних запросов вещей: кольцевой буфер из capacity
+ * самых новых запросов, упорядоченных по (created, id). Буфер загружается из базы при старте,
+ * пополняется после фиксации новых запросов и периодически перечитывается, чтобы подхватить
+ * запросы, созданные другими экземплярами приложения. Страница пользователя собирается обходом
+ * буфера от новых к старым с пропуском его собственных запросов; если буфер не покрывает
+ * страницу целиком, вызывающий код дочитывает ее из базы.
+ */
+@Slf4j
+@Component
+public class RecentRequestFeed {
+
+    private static final Comparator<ItemRequestFeedDto> ORDER = Comparator
+            .comparing(ItemRequestFeedDto::getCreated)
+            .thenComparing(ItemRequestFeedDto::getId);
+
+    private final ItemRequestRepository itemRequestRepository;
+    private final int capacity;
+    private final ItemRequestFeedDto[] ring;
+
+    private int first;
+    private int size;
+    // в базе могут быть запросы старше самого старого в буфере; до первой загрузки буфер ничего не покрывает
+    private boolean truncated = true;
+
+    public RecentRequestFeed(ItemRequestRepository itemRequestRepository,
+                             @Value("${shareit.request.feed.capacity:1000}") int capacity) {
+        this.itemRequestRepository = itemRequestRepository;
+        this.capacity = capacity;
+        this.ring = new ItemRequestFeedDto[capacity];
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${shareit.request.feed.reload-ms:60000}",
+            fixedDelayString = "${shareit.request.feed.reload-ms:60000}")
+    public void reload() {
+        List<ItemRequestFeedDto> recent = itemRequestRepository.findRecent(PageRequest.of(0, capacity));
+        synchronized (this) {
+            // запросы, добавленные во время чтения из базы, новее прочитанных и в выборку могли не попасть
+            List<ItemRequestFeedDto> appended = new ArrayList<>();
+            for (int i = 0; i < size; i++) {
+                ItemRequestFeedDto entry = at(i);
+                if (recent.isEmpty() || ORDER.compare(entry, recent.get(0)) > 0) {
+                    appended.add(entry);
+                }
+            }
+            first = 0;
+            size = 0;
+            truncated = recent.size() == capacity;
+            for (int i = recent.size() - 1; i >= 0; i--) {
+                append(recent.get(i));
+            }
+            appended.forEach(this::append);
+        }
+        log.debug("Лента запросов вещей загружена, запросов в буфере: {}", size);
+    }
+
+    /**
+     * Добавляет зафиксированный запрос в ленту. Если буфер заполнен, самый старый запрос вытесняется.
+     *
+     * @param request новый запрос
+     */
+    public synchronized void append(ItemRequestFeedDto request) {
+        if (capacity == 0) {
+            return;
+        }
+        if (size == capacity) {
+            if (ORDER.compare(request, at(0)) < 0) {
+                return;
+            }
+            ring[first] = null;
+            first = (first + 1) % capacity;
+            size--;
+            truncated = true;
+        }
+        // запросы фиксируются почти в порядке created, поэтому сдвигать приходится не дальше пары ячеек
+        int position = size;
+        while (position > 0 && ORDER.compare(at(position - 1), request) > 0) {
+            ring[index(position)] = at(position - 1);
+            position--;
+        }
+        ring[index(position)] = request;
+        size++;
+    }
+
+    /**
+     * Страница чужих запросов от новых к старым.
+     *
+     * @param userId пользователь, чьи запросы пропускаются
+     * @param after курсор последнего запроса предыдущей страницы или null для первой страницы
+     * @param offset сколько подходящих запросов пропустить
+     * @param limit размер страницы
+     * @return страница или пустой Optional, если буфер не покрывает ее и нужно читать из базы
+     */
+    public synchronized Optional<List<ItemRequestFeedDto>> page(Long userId, ItemRequestCursor after, long offset,
+                                                               int limit) {
+        List<ItemRequestFeedDto> page = new ArrayList<>();
+        long skip = offset;
+        for (int i = after == null ? size - 1 : lastBefore(after); i >= 0 && page.size() < limit; i--) {
+            ItemRequestFeedDto entry = at(i);
+            if (entry.getRequesterId().equals(userId)) {
+                continue;
+            }
+            if (skip > 0) {
+                skip--;
+                continue;
+            }
+            page.add(entry);
+        }
+        if (page.size() < limit && truncated) {
+            return Optional.empty();
+        }
+        return Optional.of(page);
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Позиция самого нового запроса, стоящего строго раньше курсора, или -1
+     */
+    private int lastBefore(ItemRequestCursor after) {
+        LocalDateTime created = after.getCreated();
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            ItemRequestFeedDto entry = at(middle);
+            int compare = entry.getCreated().compareTo(created);
+            if (compare < 0 || compare == 0 && entry.getId() < after.getId()) {
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return high;
+    }
+
+    private ItemRequestFeedDto at(int position) {
+        return ring[index(position)];
+    }
+
+    private int index(int position) {
+        return (first + position) % capacity;
+    }
+}
@@ -1,14 +1,25 @@
 package ru.practicum.shareit.user.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import ru.practicum.shareit.user.model.User;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
 
-    Optional<User> findByEmail(String email);
+    /**
+     * @param email email, приведенный {@link ru.practicum.shareit.utils.EmailNormalizer}
+     * @return пользователь с таким email без учета регистра, в PostgreSQL - по индексу ux_users_email_lower
+     */
+    @Query("select u from User u where lower(u.email) = :email")
+    Optional<User> findByNormalizedEmail(@Param("email") String email);
+
+    @Query("select u.email from User u")
+    List<String> findAllEmails();
 
 }
@@ -0,0 +1,38 @@
+package ru.practicum.shareit.user.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Недавно удаленные пользователи. Токен проверяется без обращения к базе, поэтому токен удаленного
+ * пользователя остается действительным до истечения срока; по этому набору такие токены отклоняются
+ * тоже без запроса. Запись хранится не дольше срока жизни токена - после него токен отклоняется сам.
+ * Набор локален для экземпляра сервера: удаление на другом экземпляре или до перезапуска
+ * обнаруживается только при обращении к строке пользователя в базе.
+ */
+@Component
+public class DeletedUserRegistry {
+
+    private final Duration retention;
+    private final Map<Long, Instant> deletedAt = new ConcurrentHashMap<>();
+
+    public DeletedUserRegistry(@Value("${shareit.users.deleted-retention:PT1H}") Duration retention) {
+        this.retention = retention;
+    }
+
+    public void add(Long userId) {
+        Instant now = Instant.now();
+        deletedAt.values().removeIf(at -> at.plus(retention).isBefore(now));
+        deletedAt.put(userId, now);
+    }
+
+    public boolean contains(Long userId) {
+        Instant at = deletedAt.get(userId);
+        return at != null && at.plus(retention).isAfter(Instant.now());
+    }
+}
@@ -0,0 +1,64 @@
+package ru.practicum.shareit.user.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.user.repository.UserRepository;
+import ru.practicum.shareit.utils.BloomFilter;
+import ru.practicum.shareit.utils.EmailNormalizer;
+
+import java.util.List;
+
+/**
+ * Фильтр Блума по email зарегистрированных пользователей. Позволяет при регистрации
+ * не обращаться к базе, если email точно новый. Удаленные пользователи из фильтра
+ * не убираются: это дает только лишнюю проверку в базе, но не ошибку.
+ * До загрузки фильтра при старте любой email считается возможно занятым. Фильтр - только быстрый путь:
+ * дубликат, пропущенный им, отклоняет уникальный индекс на email.
+ */
+@Slf4j
+@Component
+public class RegisteredEmailFilter {
+
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+
+    private final UserRepository userRepository;
+    private final long expectedUsers;
+
+    private volatile BloomFilter filter;
+
+    public RegisteredEmailFilter(UserRepository userRepository,
+                                 @Value("${shareit.users.email-filter.expected-users:1000000}") long expectedUsers) {
+        this.userRepository = userRepository;
+        this.expectedUsers = expectedUsers;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void warmUp() {
+        List<String> emails = userRepository.findAllEmails();
+        BloomFilter loaded = new BloomFilter(Math.max(expectedUsers, 2L * emails.size()), FALSE_POSITIVE_RATE);
+        emails.forEach(email -> loaded.put(EmailNormalizer.normalize(email)));
+        filter = loaded;
+        log.debug("Фильтр email загружен, пользователей: {}", emails.size());
+    }
+
+    /**
+     * @param email email
+     * @return false, если пользователь с таким email точно не зарегистрирован
+     */
+    public boolean mightBeRegistered(String email) {
+        BloomFilter current = filter;
+        return current == null || email == null || current.mightContain(EmailNormalizer.normalize(email));
+    }
+
+    public void add(String email) {
+        BloomFilter current = filter;
+        if (current != null && email != null) {
+            current.put(EmailNormalizer.normalize(email));
+        }
+    }
+}
@@ -15,6 +15,8 @@ import ru.practicum.shareit.user.mapper.UserMapper;
 import ru.practicum.shareit.user.repository.UserRepository;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.userDto.UserDto;
+import ru.practicum.shareit.utils.EmailNormalizer;
+import ru.practicum.shareit.utils.TransactionHooks;
 
 import java.util.List;
 import java.util.Optional;
@@ -26,21 +28,33 @@ import java.util.stream.Collectors;
 @Transactional(readOnly = true)
 public class UserServiceImpl implements UserService, UserDetailsService {
     private final UserRepository userRepository;
-
+    private final RegisteredEmailFilter registeredEmailFilter;
+    private final DeletedUserRegistry deletedUserRegistry;
+
+    /**
+     * Возвращает ссылку на текущего пользователя по идентификатору из principal. Запрос к базе
+     * выполняется лениво, только при обращении к полям пользователя, кроме идентификатора.
+     * Токен пользователя, удаленного после выдачи токена, отклоняется по {@link DeletedUserRegistry}.
+     *
+     * @return текущий пользователь
+     */
     @Override
     public User getAuthenticatedUser() {
         PersonDetails principal = (PersonDetails) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
-        Optional<User> user = userRepository.findByEmail(principal.getUsername());
-        if (!user.isPresent()) {
+        Long userId = principal.getUser().getId();
+        if (userId == null) {
             throw new NotOwnerException("не пользователь");
         }
+        if (deletedUserRegistry.contains(userId)) {
+            throw new NotOwnerException("Пользователь с id = " + userId + " удален");
+        }
 
-        return user.get();
+        return userRepository.getReferenceById(userId);
     }
 
     @Override
     public UserDetails loadUserByUsername(String s) throws UsernameNotFoundException {
-        Optional<User> user = userRepository.findByEmail(s);
+        Optional<User> user = userRepository.findByNormalizedEmail(EmailNormalizer.normalize(s));
 
         if (!user.isPresent()) {
             throw new UsernameNotFoundException("Пользователь с email = " + s + " не найден");
@@ -64,6 +78,7 @@ public class UserServiceImpl implements UserService, UserDetailsService {
 
         User user = getAuthenticatedUser();
 
+        userDto.setEmail(EmailNormalizer.normalize(userDto.getEmail()));
         if (userDto.getEmail() != null && userDto.getEmail().equals(user.getEmail())) {
             return getUserById(user.getId());
         }
@@ -74,6 +89,7 @@ public class UserServiceImpl implements UserService, UserDetailsService {
         }
         if (userDto.getEmail() != null) {
             user.setEmail(userDto.getEmail());
+            TransactionHooks.afterCommit(() -> registeredEmailFilter.add(userDto.getEmail()));
         }
         if (userDto.getPassword() != null) {
             user.setPassword(userDto.getPassword());
@@ -96,11 +112,14 @@ public class UserServiceImpl implements UserService, UserDetailsService {
     public void removeUserById(Long userId) {
         log.debug("Пользователь удален");
         userRepository.deleteById(userId);
+        TransactionHooks.afterCommit(() -> deletedUserRegistry.add(userId));
     }
 
     @Override
+    @Transactional
     public void removeYourSelfProfile() {
         User user = getAuthenticatedUser();
         userRepository.deleteById(user.getId());
+        TransactionHooks.afterCommit(() -> deletedUserRegistry.add(user.getId()));
     }
 }
@@ -0,0 +1,20 @@
+package ru.practicum.shareit.utils;
+
+import lombok.experimental.UtilityClass;
+
+import java.util.Locale;
+
+@UtilityClass
+public class EmailNormalizer {
+
+    /**
+     * Приводит email к виду, в котором он хранится: без пробелов по краям и в нижнем регистре.
+     * Так уникальность email не зависит от регистра на любой базе, в том числе без индекса по lower(email).
+     *
+     * @param email email
+     * @return нормализованный email или null
+     */
+    public static String normalize(String email) {
+        return email == null ? null : email.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,122 @@
+package ru.practicum.shareit.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Иерархическое колесо таймеров. Уровень 0 делится на wheelSize ячеек по одному тику,
+ * каждый следующий уровень покрывает в wheelSize раз больший интервал. Добавление выполняется
+ * за O(1), а при продвижении времени ячейка верхнего уровня переносится на нижние уровни,
+ * когда до ее срока остается меньше одного оборота нижнего колеса.
+ *
+ * @param <T> тип задач
+ */
+public class HierarchicalTimingWheel<T> {
+
+    private final long tickMillis;
+    private final int wheelSize;
+    private final List<List<Entry<T>>[]> levels = new ArrayList<>();
+    private final List<T> ready = new ArrayList<>();
+
+    private long currentTick;
+    private int size;
+
+    public HierarchicalTimingWheel(long tickMillis, int wheelSize, long startMillis) {
+        this.tickMillis = tickMillis;
+        this.wheelSize = wheelSize;
+        this.currentTick = startMillis / tickMillis;
+    }
+
+    /**
+     * Планирует задачу. Задача не срабатывает раньше срока, но может сработать позже не более чем на тик.
+     *
+     * @param deadlineMillis срок в миллисекундах эпохи
+     * @param task задача
+     */
+    public synchronized void schedule(long deadlineMillis, T task) {
+        long deadlineTick = Math.floorDiv(deadlineMillis + tickMillis - 1, tickMillis);
+        place(new Entry<>(deadlineTick, task));
+        size++;
+    }
+
+    /**
+     * Продвигает время и возвращает задачи, срок которых наступил
+     *
+     * @param nowMillis текущее время в миллисекундах эпохи
+     * @return задачи в порядке срабатывания
+     */
+    public synchronized List<T> advance(long nowMillis) {
+        long targetTick = nowMillis / tickMillis;
+        while (currentTick < targetTick) {
+            currentTick++;
+            cascade();
+            if (!levels.isEmpty()) {
+                drain(levels.get(0), (int) (currentTick % wheelSize));
+            }
+        }
+        List<T> due = new ArrayList<>(ready);
+        ready.clear();
+        size -= due.size();
+        return due;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    private void cascade() {
+        long granularity = wheelSize;
+        for (int level = 1; level < levels.size() && currentTick % granularity == 0; level++) {
+            drain(levels.get(level), (int) ((currentTick / granularity) % wheelSize));
+            granularity *= wheelSize;
+        }
+    }
+
+    private void drain(List<Entry<T>>[] wheel, int index) {
+        List<Entry<T>> bucket = wheel[index];
+        if (bucket == null || bucket.isEmpty()) {
+            return;
+        }
+        wheel[index] = null;
+        bucket.forEach(this::place);
+    }
+
+    private void place(Entry<T> entry) {
+        long delta = entry.tick - currentTick;
+        if (delta <= 0) {
+            ready.add(entry.task);
+            return;
+        }
+        int level = 0;
+        long granularity = 1;
+        while (delta >= granularity * wheelSize) {
+            granularity *= wheelSize;
+            level++;
+        }
+        int index = (int) ((entry.tick / granularity) % wheelSize);
+        List<Entry<T>>[] wheel = wheel(level);
+        if (wheel[index] == null) {
+            wheel[index] = new ArrayList<>();
+        }
+        wheel[index].add(entry);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Entry<T>>[] wheel(int level) {
+        while (levels.size() <= level) {
+            levels.add(new List[wheelSize]);
+        }
+        return levels.get(level);
+    }
+
+    private static final class Entry<T> {
+
+        private final long tick;
+        private final T task;
+
+        private Entry(long tick, T task) {
+            this.tick = tick;
+            this.task = task;
+        }
+    }
+}
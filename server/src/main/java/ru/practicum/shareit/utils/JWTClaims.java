@@ -0,0 +1,13 @@
+package ru.practicum.shareit.utils;
+
+import lombok.Value;
+
+/**
+ * Данные пользователя, извлеченные из проверенного JWT-токена.
+ * Идентификатор может отсутствовать в токенах, выданных до его добавления в claims.
+ */
+@Value
+public class JWTClaims {
+    Long id;
+    String email;
+}
@@ -8,36 +8,113 @@ import com.auth0.jwt.interfaces.DecodedJWT;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import javax.annotation.PostConstruct;
+import java.time.Instant;
 import java.time.ZonedDateTime;
 import java.util.Date;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 @Component
 public class JWTUtil {
 
+    private static final String SUBJECT = "User details";
+    private static final String ISSUER = "Borodulin";
+
     @Value("${jwt_secret}")
     private String secret;
 
-    public String generateToken(String email) {
+    @Value("${jwt_cache_size:10000}")
+    private int cacheSize;
+
+    private Algorithm algorithm;
+    private JWTVerifier verifier;
+
+    /**
+     * Проверенные токены по сегменту подписи: повторный запрос с тем же токеном не проверяет HMAC
+     * и не разбирает токен, пока не истечет срок его действия. Совпадение подписи проверяется
+     * сравнением всего токена с сохраненным. Чтение не берет блокировок; при переполнении сначала
+     * вытесняются истекшие токены, затем произвольные.
+     */
+    private final ConcurrentMap<String, VerifiedToken> verifiedTokens = new ConcurrentHashMap<>();
+
+    private final AtomicBoolean evicting = new AtomicBoolean();
+
+    @PostConstruct
+    public void init() {
+        algorithm = Algorithm.HMAC256(secret);
+        verifier = JWT.require(algorithm)
+                .withSubject(SUBJECT)
+                .withIssuer(ISSUER)
+                .build();
+    }
+
+    public String generateToken(Long id, String email) {
         Date issuedAt = new Date();
         Date expiresAt = Date.from(ZonedDateTime.now().plusHours(1).toInstant());
 
         return JWT.create()
-                .withSubject("User details")
+                .withSubject(SUBJECT)
+                .withClaim("id", id)
                 .withClaim("email", email)
                 .withIssuedAt(issuedAt)
-                .withIssuer("Borodulin")
+                .withIssuer(ISSUER)
                 .withExpiresAt(expiresAt)
-                .sign(Algorithm.HMAC256(secret));
+                .sign(algorithm);
     }
 
 
-    public String validateTokenAndRetrieveClaim(String token) throws JWTVerificationException {
-        JWTVerifier verifier = JWT.require(Algorithm.HMAC256(secret))
-                .withSubject("User details")
-                .withIssuer("Borodulin")
-                .build();
+    public JWTClaims validateTokenAndRetrieveClaims(String token) throws JWTVerificationException {
+        String signature = token.substring(token.lastIndexOf('.') + 1);
+        VerifiedToken cached = verifiedTokens.get(signature);
+        if (cached != null && cached.token.equals(token) && Instant.now().isBefore(cached.expiresAt)) {
+            return cached.claims;
+        }
 
         DecodedJWT jwt = verifier.verify(token);
-        return jwt.getClaim("email").asString();
+        JWTClaims claims = new JWTClaims(jwt.getClaim("id").asLong(), jwt.getClaim("email").asString());
+        if (jwt.getExpiresAt() != null) {
+            if (verifiedTokens.size() >= cacheSize) {
+                evict();
+            }
+            verifiedTokens.put(signature, new VerifiedToken(token, claims, jwt.getExpiresAt().toInstant()));
+        }
+        return claims;
+    }
+
+    /**
+     * Освобождает место в кеше: удаляет истекшие токены, а если их не хватило - произвольные,
+     * пока кеш не заполнен на три четверти. Вытеснение выполняет один поток, остальные не ждут.
+     */
+    private void evict() {
+        if (!evicting.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            Instant now = Instant.now();
+            verifiedTokens.values().removeIf(verified -> !now.isBefore(verified.expiresAt));
+            Iterator<String> signatures = verifiedTokens.keySet().iterator();
+            while (verifiedTokens.size() > cacheSize * 3 / 4 && signatures.hasNext()) {
+                signatures.next();
+                signatures.remove();
+            }
+        } finally {
+            evicting.set(false);
+        }
+    }
+
+    private static final class VerifiedToken {
+
+        private final String token;
+        private final JWTClaims claims;
+        private final Instant expiresAt;
+
+        private VerifiedToken(String token, JWTClaims claims, Instant expiresAt) {
+            this.token = token;
+            this.claims = claims;
+            this.expiresAt = expiresAt;
+        }
     }
 }
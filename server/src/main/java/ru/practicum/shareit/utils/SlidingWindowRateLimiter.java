@@ -0,0 +1,107 @@
+package ru.practicum.shareit.utils;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongSupplier;
+
+/**
+ * Ограничитель частоты по ключу со скользящим окном. Число попыток оценивается как
+ * взвешенная сумма счетчиков предыдущего и текущего окна. Состояние ключа неизменяемое
+ * и заменяется через CAS, поэтому блокировок нет.
+ */
+public class SlidingWindowRateLimiter {
+
+    private final int limit;
+    private final long windowNanos;
+    private final int maxKeys;
+    private final LongSupplier clock;
+
+    private final ConcurrentMap<String, AtomicReference<Window>> windows = new ConcurrentHashMap<>();
+    private final AtomicLong nextCleanup = new AtomicLong();
+
+    public SlidingWindowRateLimiter(int limit, Duration window, int maxKeys) {
+        this(limit, window, maxKeys, System::nanoTime);
+    }
+
+    public SlidingWindowRateLimiter(int limit, Duration window, int maxKeys, LongSupplier clock) {
+        this.limit = limit;
+        this.windowNanos = window.toNanos();
+        this.maxKeys = maxKeys;
+        this.clock = clock;
+        this.nextCleanup.set(clock.getAsLong());
+    }
+
+    /**
+     * Учитывает попытку, если лимит ключа еще не исчерпан.
+     *
+     * @param key ключ ограничения, например email или адрес клиента
+     * @return true, если попытка разрешена
+     */
+    public boolean tryAcquire(String key) {
+        long now = clock.getAsLong();
+        AtomicReference<Window> ref = windows.get(key);
+        if (ref == null) {
+            ref = windows.computeIfAbsent(key, k -> new AtomicReference<>(new Window(now, 0, 0)));
+        }
+        while (true) {
+            Window current = ref.get();
+            Window rolled = current.roll(now, windowNanos);
+            if (rolled.estimate(now, windowNanos) >= limit) {
+                return false;
+            }
+            if (ref.compareAndSet(current, rolled.increment())) {
+                cleanupIfNeeded(now);
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Удаляет ключи без попыток за последние два окна, если их стало больше допустимого.
+     * Выполняется не чаще раза за окно.
+     */
+    private void cleanupIfNeeded(long now) {
+        long scheduled = nextCleanup.get();
+        if (windows.size() <= maxKeys || now - scheduled < 0) {
+            return;
+        }
+        if (!nextCleanup.compareAndSet(scheduled, now + windowNanos)) {
+            return;
+        }
+        windows.values().removeIf(ref -> now - ref.get().start >= 2 * windowNanos);
+    }
+
+    private static final class Window {
+
+        private final long start;
+        private final int previous;
+        private final int current;
+
+        private Window(long start, int previous, int current) {
+            this.start = start;
+            this.previous = previous;
+            this.current = current;
+        }
+
+        private Window roll(long now, long windowNanos) {
+            long elapsed = now - start;
+            if (elapsed < windowNanos) {
+                return this;
+            }
+            long windowsPassed = elapsed / windowNanos;
+            return new Window(start + windowsPassed * windowNanos, windowsPassed == 1 ? current : 0, 0);
+        }
+
+        private double estimate(long now, long windowNanos) {
+            double previousWeight = (double) (windowNanos - (now - start)) / windowNanos;
+            return previous * previousWeight + current;
+        }
+
+        private Window increment() {
+            return new Window(start, previous, current + 1);
+        }
+    }
+}
@@ -6,6 +6,7 @@ import org.springframework.validation.Errors;
 import org.springframework.validation.Validator;
 import ru.practicum.shareit.exception.AlreadyExistException;
 import ru.practicum.shareit.user.repository.UserRepository;
+import ru.practicum.shareit.user.service.RegisteredEmailFilter;
 import ru.practicum.shareit.user.userDto.UserDto;
 
 @Component
@@ -13,6 +14,7 @@ import ru.practicum.shareit.user.userDto.UserDto;
 public class UserValidator implements Validator {
 
     private final UserRepository userRepository;
+    private final RegisteredEmailFilter registeredEmailFilter;
 
     @Override
     public boolean supports(Class<?> clazz) {
@@ -23,7 +25,9 @@ public class UserValidator implements Validator {
     public void validate(Object o, Errors errors) {
         UserDto userCreateDto = (UserDto) o;
 
-        if (userRepository.findByEmail(userCreateDto.getEmail()).isPresent()) {
+        // новый email фильтр отсекает без запроса, гонку регистраций закрывает уникальный индекс
+        if (registeredEmailFilter.mightBeRegistered(userCreateDto.getEmail())
+                && userRepository.findByNormalizedEmail(EmailNormalizer.normalize(userCreateDto.getEmail())).isPresent()) {
             throw new AlreadyExistException("Такой пользователь уже зарегистрирован");
         }
     }
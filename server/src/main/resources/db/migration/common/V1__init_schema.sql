@@ -0,0 +1,74 @@
+-- Базовая схема. IF NOT EXISTS позволяет накатить миграцию поверх схемы,
+-- ранее созданной hibernate ddl-auto=update (см. spring.flyway.baseline-on-migrate).
+
+CREATE TABLE IF NOT EXISTS users
+(
+    id       BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    name     VARCHAR(255),
+    email    VARCHAR(255) NOT NULL,
+    password VARCHAR(255)
+);
+
+CREATE TABLE IF NOT EXISTS categories
+(
+    id    BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    title VARCHAR(255)
+);
+
+CREATE TABLE IF NOT EXISTS requests
+(
+    id           BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    description  VARCHAR(255),
+    requester_id BIGINT NOT NULL REFERENCES users (id),
+    created      TIMESTAMP
+);
+
+CREATE TABLE IF NOT EXISTS items
+(
+    id           BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    name         VARCHAR(255),
+    description  VARCHAR(255),
+    is_available BOOLEAN,
+    photo_url    VARCHAR(255),
+    price        NUMERIC(19, 2),
+    user_id      BIGINT NOT NULL REFERENCES users (id),
+    request_id   BIGINT REFERENCES requests (id)
+);
+
+CREATE TABLE IF NOT EXISTS item_categories
+(
+    item_id BIGINT NOT NULL REFERENCES items (id),
+    cat_id  BIGINT NOT NULL REFERENCES categories (id),
+    PRIMARY KEY (item_id, cat_id)
+);
+
+CREATE TABLE IF NOT EXISTS bookings
+(
+    id         BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    start_date TIMESTAMP,
+    end_date   TIMESTAMP,
+    item_id    BIGINT NOT NULL REFERENCES items (id),
+    booker_id  BIGINT NOT NULL REFERENCES users (id),
+    status     VARCHAR(255)
+);
+
+CREATE TABLE IF NOT EXISTS comments
+(
+    id        BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    text      VARCHAR(255),
+    item_id   BIGINT NOT NULL REFERENCES items (id),
+    author_id BIGINT NOT NULL REFERENCES users (id),
+    created   TIMESTAMP
+);
+
+-- Списки бронирований пользователя: фильтр по booker_id, сортировка и курсор по (start_date, id)
+CREATE INDEX IF NOT EXISTS idx_bookings_booker_start ON bookings (booker_id, start_date, id);
+-- Списки бронирований владельца (через items.user_id) и бронирования вещи
+CREATE INDEX IF NOT EXISTS idx_bookings_item_start ON bookings (item_id, start_date, id);
+-- Последнее/следующее подтвержденное бронирование вещи
+CREATE INDEX IF NOT EXISTS idx_bookings_item_status_end ON bookings (item_id, status, end_date);
+CREATE INDEX IF NOT EXISTS idx_items_user_id ON items (user_id);
+CREATE INDEX IF NOT EXISTS idx_items_request_id ON items (request_id);
+CREATE INDEX IF NOT EXISTS idx_comments_item_id ON comments (item_id);
+CREATE INDEX IF NOT EXISTS idx_requests_requester_created ON requests (requester_id, created);
+CREATE INDEX IF NOT EXISTS idx_item_categories_cat_id ON item_categories (cat_id);
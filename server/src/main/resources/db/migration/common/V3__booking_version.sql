@@ -0,0 +1,2 @@
+-- Версия бронирования для оптимистической блокировки переходов статуса
+ALTER TABLE bookings ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
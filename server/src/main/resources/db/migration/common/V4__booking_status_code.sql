@@ -0,0 +1,3 @@
+-- Статус бронирования хранится однобуквенным кодом: W - WAITING, A - APPROVED, R - REJECTED, C - CANCELED
+UPDATE bookings SET status = SUBSTRING(status, 1, 1) WHERE LENGTH(status) > 1;
+ALTER TABLE bookings ALTER COLUMN status SET DATA TYPE CHAR(1);
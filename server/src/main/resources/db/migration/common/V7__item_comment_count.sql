@@ -0,0 +1,7 @@
+-- Число комментариев хранится на вещи, чтобы карточка вещи не считала их через COUNT(*)
+ALTER TABLE items ADD COLUMN IF NOT EXISTS comment_count BIGINT NOT NULL DEFAULT 0;
+
+UPDATE items SET comment_count = (SELECT COUNT(*) FROM comments c WHERE c.item_id = items.id);
+
+-- Комментарии вещи читаются страницами от новых к старым по id
+CREATE INDEX IF NOT EXISTS idx_comments_item_id_id ON comments (item_id, id DESC);
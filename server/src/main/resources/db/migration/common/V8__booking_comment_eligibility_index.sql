@@ -0,0 +1,3 @@
+-- Право на отзыв проверяется по завершившемуся подтвержденному бронированию конкретной вещи:
+-- первая запись индекса по (booker_id, item_id, status) сразу дает самое раннее окончание
+CREATE INDEX IF NOT EXISTS idx_bookings_booker_item_status_end ON bookings (booker_id, item_id, status, end_date);
@@ -0,0 +1,26 @@
+-- Последнее и следующее подтвержденное бронирование хранятся на вещи вместе с границами, по которым
+-- их сравнивают при подтверждении новых бронирований: карточке вещи не нужно перебирать бронирования
+ALTER TABLE items ADD COLUMN IF NOT EXISTS booking_count BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE items ADD COLUMN IF NOT EXISTS last_booking_id BIGINT REFERENCES bookings (id);
+ALTER TABLE items ADD COLUMN IF NOT EXISTS last_booking_start TIMESTAMP;
+ALTER TABLE items ADD COLUMN IF NOT EXISTS next_booking_id BIGINT REFERENCES bookings (id);
+ALTER TABLE items ADD COLUMN IF NOT EXISTS next_booking_end TIMESTAMP;
+
+UPDATE items SET booking_count = (SELECT COUNT(*) FROM bookings b WHERE b.item_id = items.id);
+
+UPDATE items SET next_booking_id = (
+    SELECT b.id FROM bookings b
+    WHERE b.item_id = items.id AND b.status = 'A' AND b.end_date > CURRENT_TIMESTAMP
+    ORDER BY b.end_date, b.id
+    LIMIT 1);
+UPDATE items SET next_booking_end = (SELECT b.end_date FROM bookings b WHERE b.id = items.next_booking_id);
+
+UPDATE items SET last_booking_id = (
+    SELECT b.id FROM bookings b
+    WHERE b.item_id = items.id AND b.status = 'A' AND b.end_date < CURRENT_TIMESTAMP
+    ORDER BY b.start_date DESC, b.id DESC
+    LIMIT 1);
+UPDATE items SET last_booking_start = (SELECT b.start_date FROM bookings b WHERE b.id = items.last_booking_id);
+
+-- Вещи, следующее бронирование которых завершилось, пока приложение было остановлено
+CREATE INDEX IF NOT EXISTS idx_items_next_booking_end ON items (next_booking_end);
@@ -0,0 +1,3 @@
+-- H2 не поддерживает индексы по выражениям: индекс уникален с учетом регистра, поэтому
+-- email приводится к нижнему регистру в коде перед сохранением (см. EmailNormalizer)
+CREATE UNIQUE INDEX IF NOT EXISTS ux_users_email ON users (email);
@@ -0,0 +1,12 @@
+-- Частичные индексы по ожидающим решения бронированиям: выборки state=WAITING у арендатора и владельца
+CREATE INDEX IF NOT EXISTS idx_bookings_booker_start_waiting ON bookings (booker_id, start_date DESC, id DESC)
+    WHERE status = 'W';
+CREATE INDEX IF NOT EXISTS idx_bookings_item_start_waiting ON bookings (item_id, start_date DESC, id DESC)
+    WHERE status = 'W';
+
+-- Частичные индексы по подтвержденным бронированиям: право на отзыв, последнее и следующее бронирование вещи,
+-- проверка пересечения при подтверждении
+CREATE INDEX IF NOT EXISTS idx_bookings_booker_end_approved ON bookings (booker_id, end_date)
+    WHERE status = 'A';
+CREATE INDEX IF NOT EXISTS idx_bookings_item_start_approved ON bookings (item_id, start_date, end_date)
+    WHERE status = 'A';
@@ -6,18 +6,25 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockHttpServletRequest;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.validation.BindingResult;
 import ru.practicum.shareit.authentication.controller.AuthController;
 import ru.practicum.shareit.authentication.dto.AuthenticationDto;
+import ru.practicum.shareit.authentication.security.PersonDetails;
 import ru.practicum.shareit.authentication.service.AuthenticationService;
+import ru.practicum.shareit.authentication.service.LoginRateLimiter;
+import ru.practicum.shareit.authentication.service.PasswordHashingService;
 import ru.practicum.shareit.exception.BadRegistrationException;
+import ru.practicum.shareit.exception.TooManyRequestsException;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.userDto.UserDto;
 import ru.practicum.shareit.utils.JWTUtil;
 import ru.practicum.shareit.utils.UserValidator;
 
+import java.util.function.Supplier;
+
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
@@ -39,6 +46,12 @@ class AuthControllerTest {
     @Mock
     private BindingResult bindingResult;
 
+    @Mock
+    private PasswordHashingService passwordHashingService;
+
+    @Mock
+    private LoginRateLimiter loginRateLimiter;
+
     @InjectMocks
     private AuthController authController;
 
@@ -76,18 +89,34 @@ class AuthControllerTest {
                 () -> authController.performRegistration(userDto, bindingResult));
 
         verify(authenticationService, never()).register(any());
-        verify(jwtUtil, never()).generateToken(anyString());
+        verify(jwtUtil, never()).generateToken(any(), anyString());
     }
 
     @Test
     void performLogin_ShouldReturnToken_WhenValidCredentials() {
-        when(jwtUtil.generateToken(anyString())).thenReturn("testToken");
+        PersonDetails personDetails = new PersonDetails(user.toBuilder().id(1L).build());
+        when(authenticationManager.authenticate(any(UsernamePasswordAuthenticationToken.class)))
+                .thenReturn(new UsernamePasswordAuthenticationToken(personDetails, null));
+        when(passwordHashingService.execute(any())).thenAnswer(invocation ->
+                invocation.<Supplier<?>>getArgument(0).get());
+        when(jwtUtil.generateToken(anyLong(), anyString())).thenReturn("testToken");
 
-        String result = authController.performLogin(authDto);
+        String result = authController.performLogin(authDto, new MockHttpServletRequest());
 
         assertEquals("testToken", result);
         verify(authenticationManager).authenticate(any(UsernamePasswordAuthenticationToken.class));
-        verify(jwtUtil).generateToken(authDto.getEmail());
+        verify(jwtUtil).generateToken(1L, authDto.getEmail());
+        verify(loginRateLimiter).check(eq(authDto.getEmail()), anyString());
+    }
+
+    @Test
+    void performLogin_ShouldNotCheckPassword_WhenThrottled() {
+        doThrow(new TooManyRequestsException("throttled")).when(loginRateLimiter).check(anyString(), anyString());
+
+        assertThrows(TooManyRequestsException.class,
+                () -> authController.performLogin(authDto, new MockHttpServletRequest()));
+
+        verifyNoInteractions(passwordHashingService, authenticationManager);
     }
 
 }
@@ -8,24 +8,37 @@ import static org.hamcrest.CoreMatchers.is;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.ResultActions;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import ru.practicum.shareit.booking.controller.BookingController;
+import ru.practicum.shareit.booking.dto.BookingBatchDto;
+import ru.practicum.shareit.booking.dto.BookingCursor;
+import ru.practicum.shareit.booking.dto.BookingDecisionDto;
+import ru.practicum.shareit.booking.dto.BookingDecisionResultDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.BookingUpdateDto;
+import ru.practicum.shareit.booking.dto.RequestBookingStatus;
+import ru.practicum.shareit.booking.model.BookingStatus;
 import ru.practicum.shareit.booking.service.BookingService;
 import ru.practicum.shareit.exception.ErrorHandler;
 import ru.practicum.shareit.exception.IdNotFoundException;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(controllers = BookingController.class)
@@ -199,7 +212,7 @@ public class BookingControllerTest {
 
         BookingDto expected = BookingDto.builder()
                 .id(1L)
-                .status("WAITING")
+                .status(BookingStatus.WAITING)
                 .start(LocalDateTime.now().plusDays(1))
                 .end(LocalDateTime.now().plusDays(2))
                 .build();
@@ -225,7 +238,7 @@ public class BookingControllerTest {
 
         BookingDto expected = BookingDto.builder()
                 .id(1L)
-                .status("WAITING")
+                .status(BookingStatus.WAITING)
                 .start(LocalDateTime.now().plusDays(1))
                 .end(LocalDateTime.now().plusDays(2))
                 .build();
@@ -251,7 +264,7 @@ public class BookingControllerTest {
 
         BookingDto expected = BookingDto.builder()
                 .id(1L)
-                .status("WAITING")
+                .status(BookingStatus.WAITING)
                 .start(LocalDateTime.now().plusDays(1))
                 .end(LocalDateTime.now().plusDays(2))
                 .build();
@@ -274,7 +287,7 @@ public class BookingControllerTest {
 
         BookingDto expected = BookingDto.builder()
                 .id(1L)
-                .status("WAITING")
+                .status(BookingStatus.WAITING)
                 .start(LocalDateTime.now().plusDays(1))
                 .end(LocalDateTime.now().plusDays(2))
                 .build();
@@ -298,7 +311,7 @@ public class BookingControllerTest {
 
         BookingDto expected = BookingDto.builder()
                 .id(1L)
-                .status("WAITING")
+                .status(BookingStatus.WAITING)
                 .start(LocalDateTime.now().plusDays(1))
                 .end(LocalDateTime.now().plusDays(2))
                 .build();
@@ -311,4 +324,107 @@ public class BookingControllerTest {
 
         response.andExpect(status().isOk());
     }
+
+    @Test
+    @WithMockUser
+    void getUserItemBookingsTreatsFromAsPageNumber() throws Exception {
+        when(bookingService.getBookingStatusByOwner(any(), any(Pageable.class)))
+                .thenReturn(List.of());
+
+        mockMvc.perform(MockMvcRequestBuilders.get(URL.concat("/owner"))
+                        .param("from", "1")
+                        .param("size", "10"))
+                .andExpect(status().isOk());
+
+        verify(bookingService).getBookingStatusByOwner(RequestBookingStatus.ALL, PageRequest.of(1, 10));
+    }
+
+    @Test
+    @WithMockUser
+    void getUserBookingsReturnsNextCursor() throws Exception {
+        LocalDateTime start = LocalDateTime.of(2030, 1, 1, 12, 0);
+        BookingDto expected = BookingDto.builder()
+                .id(7L)
+                .status(BookingStatus.WAITING)
+                .start(start)
+                .end(start.plusDays(1))
+                .build();
+
+        when(bookingService.getBookingsByUser(any(), any(Pageable.class)))
+                .thenReturn(List.of(expected));
+
+        ResultActions response = mockMvc.perform(MockMvcRequestBuilders.get(URL)
+                .param("size", "1"));
+
+        response.andExpect(status().isOk())
+                .andExpect(header().string(BookingController.NEXT_CURSOR_HEADER,
+                        new BookingCursor(start, 7L).encode()));
+    }
+
+    @Test
+    @WithMockUser
+    void getUserItemBookingsByCursor() throws Exception {
+        LocalDateTime start = LocalDateTime.of(2030, 1, 1, 12, 0);
+
+        when(bookingService.getBookingStatusByOwner(eq(RequestBookingStatus.ALL), any(BookingCursor.class), eq(10)))
+                .thenReturn(List.of());
+
+        ResultActions response = mockMvc.perform(MockMvcRequestBuilders.get(URL.concat("/owner"))
+                .param("after", new BookingCursor(start, 7L).encode()));
+
+        response.andExpect(status().isOk())
+                .andExpect(header().doesNotExist(BookingController.NEXT_CURSOR_HEADER));
+        verify(bookingService).getBookingStatusByOwner(eq(RequestBookingStatus.ALL), any(BookingCursor.class), eq(10));
+    }
+
+    @Test
+    @WithMockUser
+    void getOwnerSummary() throws Exception {
+        when(bookingService.getOwnerSummary()).thenReturn(Map.of(RequestBookingStatus.WAITING, 2L));
+
+        ResultActions response = mockMvc.perform(MockMvcRequestBuilders.get(URL.concat("/owner/summary")));
+
+        response.andExpect(status().isOk())
+                .andExpect(jsonPath("$.WAITING", is(2)));
+    }
+
+    @Test
+    @WithMockUser
+    void getUserBookingsWithBrokenCursor() throws Exception {
+        ResultActions response = mockMvc.perform(MockMvcRequestBuilders.get(URL)
+                .param("after", "broken"));
+
+        response.andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @WithMockUser
+    void updateBatch() throws Exception {
+        BookingBatchDto body = BookingBatchDto.builder()
+                .decisions(List.of(new BookingDecisionDto(1L, true), new BookingDecisionDto(2L, false)))
+                .build();
+        when(bookingService.updateBookings(body.getDecisions())).thenReturn(List.of(
+                BookingDecisionResultDto.applied(1L, BookingStatus.APPROVED),
+                BookingDecisionResultDto.failed(2L, "Бронирования с id = 2 не найдено")));
+
+        ResultActions response = mockMvc.perform(MockMvcRequestBuilders.patch(URL.concat("/batch"))
+                .with(csrf())
+                .header("Content-Type", "application/json")
+                .content(mapper.writeValueAsString(body)));
+
+        response.andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].status", is("APPROVED")))
+                .andExpect(jsonPath("$[1].error", is("Бронирования с id = 2 не найдено")));
+    }
+
+    @Test
+    @WithMockUser
+    void updateBatchWithoutDecisions() throws Exception {
+        ResultActions response = mockMvc.perform(MockMvcRequestBuilders.patch(URL.concat("/batch"))
+                .with(csrf())
+                .header("Content-Type", "application/json")
+                .content(mapper.writeValueAsString(new BookingBatchDto(List.of()))));
+
+        response.andExpect(status().isBadRequest());
+    }
 }
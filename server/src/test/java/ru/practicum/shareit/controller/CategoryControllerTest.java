@@ -12,6 +12,7 @@ import ru.practicum.shareit.category.service.CategoryService;
 import ru.practicum.shareit.item.dto.ItemResponseDto;
 import ru.practicum.shareit.item.service.ItemService;
 
+import java.io.ByteArrayOutputStream;
 import java.math.BigDecimal;
 import java.util.List;
 import java.util.Map;
@@ -107,6 +108,25 @@ class CategoryControllerTest {
         verify(itemService).getItemForCatId(categoryId);
     }
 
+    @Test
+    void getItemForCatIdPage_ShouldPassCursor() {
+        when(itemService.getItemForCatId(1L, 5L, 10)).thenReturn(List.of(itemResponseDto));
+
+        List<ItemResponseDto> result = categoryController.getItemForCatIdPage(1L, 5L, 10);
+
+        assertEquals(1, result.size());
+        verify(itemService).getItemForCatId(1L, 5L, 10);
+    }
+
+    @Test
+    void streamAll_ShouldWriteCatalogIntoResponse() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        categoryController.streamAll().getBody().writeTo(out);
+
+        verify(itemService).writeCatalog(out);
+    }
+
     @Test
     void addCategory_ShouldVerifyServiceCall() {
         CategoryDto newCategory = CategoryDto.builder()
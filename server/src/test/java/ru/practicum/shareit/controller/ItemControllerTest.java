@@ -23,6 +23,7 @@ import java.util.List;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 
@@ -195,5 +196,18 @@ public class ItemControllerTest {
         response.andExpect(status().is4xxClientError());
     }
 
+    @Test
+    @WithMockUser
+    void suggest() throws Exception {
+        when(itemService.suggest("дре", 5))
+                .thenReturn(List.of("дрель", "дрель ударная"));
 
+        ResultActions response = mockMvc.perform(MockMvcRequestBuilders.get(URL.concat("/suggest"))
+                .param("prefix", "дре")
+                .param("size", "5"));
+
+        response.andExpect(status().isOk())
+                .andExpect(jsonPath("$[0]").value("дрель"))
+                .andExpect(jsonPath("$[1]").value("дрель ударная"));
+    }
 }
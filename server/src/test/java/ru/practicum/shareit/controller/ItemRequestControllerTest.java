@@ -103,7 +103,7 @@ class ItemRequestControllerTest {
         PageRequest pageRequest = PageRequest.of(0, 10, Sort.by("created").descending());
         when(itemRequestService.getAll(pageRequest)).thenReturn(List.of(itemRequestDto));
 
-        List<ItemRequestDto> result = itemRequestController.getAllRequests(0, 10);
+        List<ItemRequestDto> result = itemRequestController.getAllRequests(0, 10, null).getBody();
 
         assertNotNull(result);
         assertEquals(1, result.size());
@@ -0,0 +1,31 @@
+package ru.practicum.shareit.dto;
+
+import org.junit.jupiter.api.Test;
+import ru.practicum.shareit.booking.dto.BookingCursor;
+import ru.practicum.shareit.exception.ValidateException;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class BookingCursorTest {
+
+    @Test
+    void encodeDecodeRoundTrip() {
+        LocalDateTime start = LocalDateTime.of(2024, 3, 1, 10, 15, 30, 123_000_000);
+        String token = new BookingCursor(start, 42L).encode();
+
+        BookingCursor cursor = BookingCursor.decode(token);
+
+        assertThat(token).doesNotContain("|", "=", "+", "/");
+        assertThat(cursor.getStart()).isEqualTo(start);
+        assertThat(cursor.getId()).isEqualTo(42L);
+    }
+
+    @Test
+    void decodeInvalidToken() {
+        assertThrows(ValidateException.class, () -> BookingCursor.decode("not a cursor"));
+        assertThrows(ValidateException.class, () -> BookingCursor.decode("MjAyNA"));
+    }
+}
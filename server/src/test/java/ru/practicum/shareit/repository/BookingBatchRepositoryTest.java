@@ -0,0 +1,96 @@
+package ru.practicum.shareit.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.practicum.shareit.booking.dto.BookingStateDto;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.repository.BookingBatchRepository;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static ru.practicum.shareit.repository.RepositoryFixture.ITEM_ID;
+import static ru.practicum.shareit.repository.RepositoryFixture.insertBooking;
+
+@RepositoryTest
+@Import(BookingBatchRepository.class)
+class BookingBatchRepositoryTest {
+
+    private final LocalDateTime start = LocalDateTime.of(2030, 1, 1, 10, 0);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private BookingBatchRepository bookingBatchRepository;
+
+    @BeforeEach
+    void setUp() {
+        insertBooking(jdbcTemplate, 1, ITEM_ID, start, start.plusDays(2), "W");
+        insertBooking(jdbcTemplate, 2, ITEM_ID, start.plusDays(1), start.plusDays(3), "W");
+        insertBooking(jdbcTemplate, 3, ITEM_ID, start.plusDays(5), start.plusDays(6), "W");
+    }
+
+    @Test
+    void approvesOnlyNonOverlappingBookings() {
+        List<BookingStateDto> states = bookingRepository.findStatesByIdIn(Set.of(1L, 2L, 3L));
+        states.sort((left, right) -> left.getId().compareTo(right.getId()));
+
+        int[] counts = bookingBatchRepository.approve(states);
+
+        assertThat(counts).containsExactly(1, 0, 1);
+        assertThat(statusOf(1)).isEqualTo(BookingStatus.APPROVED);
+        assertThat(statusOf(2)).isEqualTo(BookingStatus.WAITING);
+        assertThat(statusOf(3)).isEqualTo(BookingStatus.APPROVED);
+    }
+
+    @Test
+    void statusIsStoredAsSingleCharCode() {
+        jdbcTemplate.update("update bookings set status = 'C' where id = 3");
+
+        assertThat(bookingRepository.findById(3L).orElseThrow().getStatus()).isEqualTo(BookingStatus.CANCELED);
+        assertThat(bookingRepository.findStatesByIdIn(Set.of(1L)).get(0).getStatus())
+                .isEqualTo(BookingStatus.WAITING);
+    }
+
+    @Test
+    void staleVersionIsNotUpdated() {
+        List<BookingStateDto> states = bookingRepository.findStatesByIdIn(Set.of(1L));
+        jdbcTemplate.update("update bookings set version = version + 1 where id = 1");
+
+        assertThat(bookingBatchRepository.reject(states)).containsExactly(0);
+        assertThat(statusOf(1)).isEqualTo(BookingStatus.WAITING);
+    }
+
+    @Test
+    void rejectsBookings() {
+        List<BookingStateDto> states = bookingRepository.findStatesByIdIn(Set.of(1L));
+
+        assertThat(bookingBatchRepository.reject(states)).containsExactly(1);
+        assertThat(statusOf(1)).isEqualTo(BookingStatus.REJECTED);
+    }
+
+    @Test
+    void findsOverlapWithActiveBookingsOnly() {
+        jdbcTemplate.update("update bookings set status = 'R' where id = 3");
+        List<BookingStatus> active = List.of(BookingStatus.WAITING, BookingStatus.APPROVED);
+
+        assertThat(bookingRepository.existsOverlapping(1L, active, start.plusDays(2), start.plusDays(4))).isTrue();
+        assertThat(bookingRepository.existsOverlapping(1L, active, start.plusDays(3), start.plusDays(6))).isFalse();
+        assertThat(bookingRepository.existsOverlapping(2L, active, start, start.plusDays(1))).isFalse();
+    }
+
+    private BookingStatus statusOf(long id) {
+        String code = jdbcTemplate.queryForObject("select status from bookings where id = ?", String.class, id);
+        return BookingStatus.fromCode(code.charAt(0));
+    }
+}
@@ -0,0 +1,128 @@
+package ru.practicum.shareit.repository;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.mapper.BookingMapper;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static ru.practicum.shareit.repository.RepositoryFixture.ITEM_ID;
+import static ru.practicum.shareit.repository.RepositoryFixture.insertBooking;
+
+@RepositoryTest
+@TestPropertySource(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class BookingListQueryTest {
+
+    private final LocalDateTime now = LocalDateTime.now();
+    private final Pageable page = PageRequest.of(0, 10);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @BeforeEach
+    void setUp() {
+        for (int id = 2; id <= 3; id++) {
+            jdbcTemplate.update("insert into items (id, name, is_available, user_id) values (?, ?, true, 1)",
+                    id, "item" + id);
+        }
+        insertBooking(jdbcTemplate, 1, ITEM_ID, now.minusDays(3), now.minusDays(2), "A");
+        insertBooking(jdbcTemplate, 2, 2, now.minusDays(1), now.plusDays(1), "W");
+        insertBooking(jdbcTemplate, 3, 3, now.plusDays(1), now.plusDays(2), "R");
+        entityManager.clear();
+    }
+
+    @Test
+    void everyListPageCostsOneStatement() {
+        LocalDateTime cursorStart = now.plusYears(1);
+        Map<String, Supplier<List<Booking>>> queries = new LinkedHashMap<>();
+        queries.put("booker all", () -> bookingRepository.findBookingByBookerIdOrderByStartDescIdDesc(2L, page));
+        queries.put("booker status", () -> bookingRepository
+                .findBookingByBookerIdAndStatusOrderByStartDescIdDesc(2L, BookingStatus.WAITING, page));
+        queries.put("booker current", () -> bookingRepository.findCurrentBookingByBookerId(2L, page));
+        queries.put("booker past", () -> bookingRepository.findPastBookingByBookerId(2L, page));
+        queries.put("booker future", () -> bookingRepository.findFutureBookingByBookerId(2L, page));
+        queries.put("owner all", () -> bookingRepository.findBookingsByItem_OwnerIdOrderByStartDescIdDesc(1L, page));
+        queries.put("owner status", () -> bookingRepository
+                .findBookingsByItem_OwnerIdAndStatusOrderByStartDescIdDesc(1L, BookingStatus.REJECTED, page));
+        queries.put("owner current", () -> bookingRepository.findCurrentBookingByOwnerId(1L, page));
+        queries.put("owner past", () -> bookingRepository
+                .findBookingsByItem_OwnerIdAndEndBeforeOrderByStartDescIdDesc(1L, now, page));
+        queries.put("owner future", () -> bookingRepository
+                .findBookingsByItem_OwnerIdAndStartAfterOrderByStartDescIdDesc(1L, now, page));
+        queries.put("booker page", () -> bookingRepository.findBookerPageAfter(2L, cursorStart, 0L, page));
+        queries.put("booker status page", () -> bookingRepository.findBookerPageByStatusAfter(2L,
+                BookingStatus.APPROVED, cursorStart, 0L, page));
+        queries.put("booker current page", () -> bookingRepository.findBookerCurrentPageAfter(2L, now,
+                cursorStart, 0L, page));
+        queries.put("booker past page", () -> bookingRepository.findBookerPastPageAfter(2L, now, cursorStart, 0L,
+                page));
+        queries.put("booker future page", () -> bookingRepository.findBookerFuturePageAfter(2L, now, cursorStart,
+                0L, page));
+        queries.put("owner page", () -> bookingRepository.findOwnerPageAfter(1L, cursorStart, 0L, page));
+        queries.put("owner status page", () -> bookingRepository.findOwnerPageByStatusAfter(1L,
+                BookingStatus.WAITING, cursorStart, 0L, page));
+        queries.put("owner current page", () -> bookingRepository.findOwnerCurrentPageAfter(1L, now, cursorStart,
+                0L, page));
+        queries.put("owner past page", () -> bookingRepository.findOwnerPastPageAfter(1L, now, cursorStart, 0L,
+                page));
+        queries.put("owner future page", () -> bookingRepository.findOwnerFuturePageAfter(1L, now, cursorStart,
+                0L, page));
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        queries.forEach((name, query) -> {
+            entityManager.clear();
+            statistics.clear();
+
+            List<BookingDto> dtos = query.get().stream()
+                    .map(BookingMapper::bookingToBookingDTO)
+                    .collect(Collectors.toList());
+
+            assertThat(dtos).as(name).isNotEmpty();
+            assertThat(statistics.getPrepareStatementCount()).as(name).isEqualTo(1);
+        });
+    }
+
+    @Test
+    void cursorContinuesFirstPageOnEqualStarts() {
+        LocalDateTime start = now.plusDays(5);
+        for (long id = 4; id <= 6; id++) {
+            insertBooking(jdbcTemplate, id, ITEM_ID, start, start.plusDays(1), "W");
+        }
+
+        List<Booking> first = bookingRepository.findBookingByBookerIdOrderByStartDescIdDesc(2L, PageRequest.of(0, 2));
+        Booking last = first.get(first.size() - 1);
+        List<Booking> next = bookingRepository.findBookerPageAfter(2L, last.getStart(), last.getId(),
+                PageRequest.of(0, 2));
+
+        assertThat(first).extracting(Booking::getId).containsExactly(6L, 5L);
+        assertThat(next).extracting(Booking::getId).containsExactly(4L, 3L);
+    }
+}
@@ -0,0 +1,103 @@
+package ru.practicum.shareit.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.booking.service.ItemBookingPointers;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+
+import javax.persistence.EntityManager;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static ru.practicum.shareit.repository.RepositoryFixture.ITEM_ID;
+
+@RepositoryTest
+@Import(ItemBookingPointers.class)
+class ItemBookingPointersQueryTest {
+
+    private final LocalDateTime now = LocalDateTime.of(2030, 1, 1, 12, 0);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private ItemBookingPointers pointers;
+
+    @BeforeEach
+    void setUp() {
+        insertBooking(1L, now.minusDays(3), now.minusDays(2));
+        insertBooking(2L, now.plusDays(3), now.plusDays(4));
+        insertBooking(3L, now.plusDays(1), now.plusDays(2));
+    }
+
+    @Test
+    void approvalsMoveNextAndLastPointers() {
+        approve(2L);
+        approve(3L);
+        approve(1L);
+
+        Item item = reload();
+        assertThat(item.getBookingCount()).isEqualTo(3L);
+        assertThat(item.getNextBooking().getId()).isEqualTo(3L);
+        assertThat(item.getNextBookingEnd()).isEqualTo(now.plusDays(2));
+        assertThat(item.getLastBooking().getId()).isEqualTo(1L);
+        assertThat(item.getLastBookingStart()).isEqualTo(now.minusDays(3));
+    }
+
+    @Test
+    void endedNextBookingIsResolvedAndRefreshed() {
+        approve(3L);
+        approve(2L);
+        LocalDateTime later = now.plusDays(2).plusHours(1);
+
+        Booking[] resolved = pointers.resolve(reload(), later);
+        assertThat(resolved[0].getId()).isEqualTo(3L);
+        assertThat(resolved[1].getId()).isEqualTo(2L);
+        assertThat(itemRepository.findIdsWithEndedNextBooking(later)).containsExactly(1L);
+
+        pointers.refresh(1L, later);
+
+        Item item = reload();
+        assertThat(item.getLastBooking().getId()).isEqualTo(3L);
+        assertThat(item.getNextBooking().getId()).isEqualTo(2L);
+        assertThat(itemRepository.findIdsWithEndedNextBooking(later)).isEmpty();
+
+        pointers.refresh(1L, now.plusDays(5));
+
+        item = reload();
+        assertThat(item.getLastBooking().getId()).isEqualTo(2L);
+        assertThat(item.getNextBooking()).isNull();
+        assertThat(item.getNextBookingEnd()).isNull();
+    }
+
+    private void insertBooking(Long id, LocalDateTime start, LocalDateTime end) {
+        RepositoryFixture.insertBooking(jdbcTemplate, id, ITEM_ID, start, end, "W");
+        pointers.onCreated(ITEM_ID);
+    }
+
+    private void approve(Long bookingId) {
+        jdbcTemplate.update("update bookings set status = 'A' where id = ?", bookingId);
+        Booking booking = bookingRepository.getReferenceById(bookingId);
+        pointers.onApproved(1L, booking, booking.getStart(), booking.getEnd(), now);
+    }
+
+    private Item reload() {
+        entityManager.clear();
+        return itemRepository.findWithBookingPointersById(1L).orElseThrow();
+    }
+}
@@ -0,0 +1,96 @@
+package ru.practicum.shareit.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.item.model.Comment;
+import ru.practicum.shareit.item.repository.CommentRepository;
+import ru.practicum.shareit.item.repository.ItemRepository;
+
+import javax.persistence.EntityManager;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static ru.practicum.shareit.repository.RepositoryFixture.BOOKER_ID;
+import static ru.practicum.shareit.repository.RepositoryFixture.ITEM_ID;
+import static ru.practicum.shareit.repository.RepositoryFixture.OWNER_ID;
+import static ru.practicum.shareit.repository.RepositoryFixture.insertBooking;
+
+@RepositoryTest
+class ItemCommentQueryTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private CommentRepository commentRepository;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("insert into items (id, name, is_available, user_id) values (2, 'saw', true, 1)");
+        for (long id = 1; id <= 5; id++) {
+            jdbcTemplate.update("insert into comments (id, text, item_id, author_id, created) "
+                    + "values (?, ?, 1, 2, current_timestamp)", id, "comment" + id);
+        }
+        jdbcTemplate.update("insert into comments (id, text, item_id, author_id, created) "
+                + "values (6, 'other', 2, 2, current_timestamp)");
+    }
+
+    @Test
+    void commentPagesGoFromNewestToOldest() {
+        List<Comment> first = commentRepository.findItemPageBefore(1L, Long.MAX_VALUE, PageRequest.of(0, 2));
+        List<Comment> second = commentRepository.findItemPageBefore(1L, first.get(1).getId(), PageRequest.of(0, 2));
+
+        assertThat(first).extracting(Comment::getId).containsExactly(5L, 4L);
+        assertThat(second).extracting(Comment::getId).containsExactly(3L, 2L);
+        assertThat(second.get(0).getUser().getName()).isEqualTo("booker");
+    }
+
+    @Test
+    void latestCommentsAreLimitedPerItem() {
+        List<Long> ids = commentRepository.findLatestIdsByItemIdIn(List.of(1L, 2L), 2);
+        List<Comment> comments = commentRepository.findAllWithUserByIdIn(ids);
+
+        assertThat(ids).containsExactlyInAnyOrder(5L, 4L, 6L);
+        assertThat(comments).extracting(Comment::getId).containsExactly(6L, 5L, 4L);
+        assertThat(comments.get(0).getUser().getName()).isEqualTo("booker");
+    }
+
+    @Test
+    void commentCountIsIncrementedInPlace() {
+        itemRepository.incrementCommentCount(1L);
+        itemRepository.incrementCommentCount(1L);
+        entityManager.clear();
+
+        assertThat(itemRepository.findById(1L).orElseThrow().getCommentCount()).isEqualTo(2L);
+        assertThat(itemRepository.findById(2L).orElseThrow().getCommentCount()).isZero();
+    }
+
+    @Test
+    void earliestEndIsScopedToBookerAndItem() {
+        LocalDateTime now = LocalDateTime.of(2030, 1, 1, 12, 0);
+        insertBooking(jdbcTemplate, 1, ITEM_ID, now.minusDays(3), now.minusDays(2), "A");
+        insertBooking(jdbcTemplate, 2, ITEM_ID, now.minusDays(5), now.minusDays(4), "R");
+        insertBooking(jdbcTemplate, 3, 2, now.minusDays(9), now.minusDays(8), "A");
+        insertBooking(jdbcTemplate, 4, ITEM_ID, OWNER_ID, now.minusDays(9), now.minusDays(8), "A");
+
+        assertThat(bookingRepository.findEarliestEnd(BOOKER_ID, ITEM_ID, BookingStatus.APPROVED, PageRequest.of(0, 1)))
+                .containsExactly(now.minusDays(2));
+        assertThat(bookingRepository.findEarliestEnd(BOOKER_ID, ITEM_ID, BookingStatus.WAITING, PageRequest.of(0, 1)))
+                .isEmpty();
+    }
+}
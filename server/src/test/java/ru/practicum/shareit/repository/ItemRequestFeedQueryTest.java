@@ -0,0 +1,122 @@
+package ru.practicum.shareit.repository;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.request.dto.ItemRequestCursor;
+import ru.practicum.shareit.request.dto.ItemRequestDto;
+import ru.practicum.shareit.request.service.ItemRequestServiceImpl;
+import ru.practicum.shareit.request.service.RecentRequestFeed;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.service.UserService;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@Import(ItemRequestServiceImpl.class)
+class ItemRequestFeedQueryTest {
+
+    private final LocalDateTime created = LocalDateTime.of(2030, 1, 1, 12, 0);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private ItemRequestServiceImpl itemRequestService;
+
+    @MockBean
+    private UserService userService;
+
+    @MockBean
+    private RecentRequestFeed recentRequestFeed;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("insert into users (id, name, email) values (1, 'owner', 'owner@test.ru')");
+        jdbcTemplate.update("insert into users (id, name, email) values (2, 'requester', 'requester@test.ru')");
+        jdbcTemplate.update("insert into categories (id, title) values (1, 'tools'), (2, 'garden')");
+        for (int id = 1; id <= 5; id++) {
+            jdbcTemplate.update("insert into requests (id, description, requester_id, created) values (?, ?, 2, ?)",
+                    id, "request" + id, created.plusMinutes(id));
+            for (int n = 0; n < 3; n++) {
+                long itemId = id * 10L + n;
+                jdbcTemplate.update("insert into items (id, name, is_available, user_id, request_id) "
+                        + "values (?, ?, true, 1, ?)", itemId, "item" + itemId, id);
+                jdbcTemplate.update("insert into item_categories (item_id, cat_id) values (?, 1), (?, 2)",
+                        itemId, itemId);
+            }
+        }
+        when(userService.getAuthenticatedUser()).thenReturn(User.builder().id(1L).build());
+        entityManager.clear();
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void feedPageCostsThreeStatements() {
+        List<ItemRequestDto> feed = itemRequestService.getAll(PageRequest.of(0, 10));
+
+        assertThat(feed).hasSize(5);
+        assertThat(feed.get(0).getId()).isEqualTo(5L);
+        assertThat(feed.get(0).getItems()).extracting(ItemDto::getId).containsExactly(50L, 51L, 52L);
+        assertThat(feed.get(0).getItems().get(0).getCatIds()).containsExactlyInAnyOrder(1L, 2L);
+        assertThat(feed.get(0).getItems().get(0).getRequestId()).isEqualTo(5L);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(3);
+    }
+
+    @Test
+    void feedPageAfterCursorSkipsOwnRequests() {
+        jdbcTemplate.update("insert into requests (id, description, requester_id, created) values (6, 'own', 1, ?)",
+                created.plusMinutes(3));
+        jdbcTemplate.update("insert into requests (id, description, requester_id, created) values (7, 'tie', 2, ?)",
+                created.plusMinutes(4));
+
+        List<ItemRequestDto> feed = itemRequestService.getAll(new ItemRequestCursor(created.plusMinutes(4), 7L), 2);
+
+        assertThat(feed).extracting(ItemRequestDto::getId).containsExactly(4L, 3L);
+    }
+
+    @Test
+    void selfRequestsCostThreeStatements() {
+        when(userService.getAuthenticatedUser()).thenReturn(User.builder().id(2L).build());
+
+        List<ItemRequestDto> requests = itemRequestService.getSelfRequests();
+
+        assertThat(requests).hasSize(5);
+        assertThat(requests).allSatisfy(request -> assertThat(request.getItems()).hasSize(3));
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(3);
+    }
+
+    @Test
+    void singleRequestCostsThreeStatements() {
+        ItemRequestDto request = itemRequestService.get(3L);
+
+        assertThat(request.getItems()).extracting(ItemDto::getId).containsExactly(30L, 31L, 32L);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(3);
+    }
+}
@@ -0,0 +1,58 @@
+package ru.practicum.shareit.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.practicum.shareit.booking.dto.BookingStateDto;
+import ru.practicum.shareit.booking.dto.OwnerBookingCountDto;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static ru.practicum.shareit.repository.RepositoryFixture.ITEM_ID;
+import static ru.practicum.shareit.repository.RepositoryFixture.insertBooking;
+
+@RepositoryTest
+class OwnerBookingQueryTest {
+
+    private final LocalDateTime now = LocalDateTime.of(2030, 1, 10, 12, 0);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("insert into items (id, name, is_available, user_id) values (2, 'saw', true, 2)");
+        insertBooking(jdbcTemplate, 1, ITEM_ID, now.minusDays(5), now.minusDays(4), "A");
+        insertBooking(jdbcTemplate, 2, ITEM_ID, now.minusDays(1), now.plusDays(1), "A");
+        insertBooking(jdbcTemplate, 3, ITEM_ID, now.plusDays(1), now.plusDays(2), "W");
+        insertBooking(jdbcTemplate, 4, 2, now.plusDays(1), now.plusDays(2), "W");
+    }
+
+    @Test
+    void countsBookingsByOwnerAndStatus() {
+        List<OwnerBookingCountDto> counts = bookingRepository.countByOwnerIds(List.of(1L), now);
+
+        assertThat(counts)
+                .extracting(OwnerBookingCountDto::getOwnerId, OwnerBookingCountDto::getStatus,
+                        OwnerBookingCountDto::getTotal, OwnerBookingCountDto::getPast)
+                .containsExactlyInAnyOrder(
+                        tuple(1L, BookingStatus.APPROVED, 2L, 1L),
+                        tuple(1L, BookingStatus.WAITING, 1L, 0L));
+    }
+
+    @Test
+    void findsUnfinishedBookingsOfOwners() {
+        List<BookingStateDto> unfinished = bookingRepository.findUnfinishedByOwnerIds(List.of(1L), now);
+
+        assertThat(unfinished).extracting(BookingStateDto::getId).containsExactlyInAnyOrder(2L, 3L);
+    }
+}
@@ -0,0 +1,28 @@
+package ru.practicum.shareit.repository;
+
+import lombok.experimental.UtilityClass;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+
+/**
+ * Строки общего набора данных {@link RepositoryTest} и вставка бронирований для сценариев.
+ */
+@UtilityClass
+class RepositoryFixture {
+
+    static final long OWNER_ID = 1L;
+    static final long BOOKER_ID = 2L;
+    static final long ITEM_ID = 1L;
+
+    static void insertBooking(JdbcTemplate jdbcTemplate, long id, long itemId, long bookerId,
+                              LocalDateTime start, LocalDateTime end, String status) {
+        jdbcTemplate.update("insert into bookings (id, start_date, end_date, item_id, booker_id, status) "
+                + "values (?, ?, ?, ?, ?, ?)", id, start, end, itemId, bookerId, status);
+    }
+
+    static void insertBooking(JdbcTemplate jdbcTemplate, long id, long itemId,
+                              LocalDateTime start, LocalDateTime end, String status) {
+        insertBooking(jdbcTemplate, id, itemId, BOOKER_ID, start, end, status);
+    }
+}
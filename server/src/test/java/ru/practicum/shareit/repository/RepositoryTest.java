@@ -0,0 +1,20 @@
+package ru.practicum.shareit.repository;
+
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.jdbc.Sql;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Тест репозитория на H2 со схемой из миграций. Перед каждым тестом в его транзакции добавляются
+ * владелец (id 1), арендатор (id 2) и вещь владельца (id 1), см. {@link RepositoryFixture}.
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+@Sql("/repository/owner-booker-item.sql")
+public @interface RepositoryTest {
+}
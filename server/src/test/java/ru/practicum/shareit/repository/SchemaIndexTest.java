@@ -0,0 +1,69 @@
+package ru.practicum.shareit.repository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+class SchemaIndexTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void migrationsCreateHotPathIndexes() {
+        List<String> indexes = jdbcTemplate.queryForList(
+                "select lower(index_name) from information_schema.indexes", String.class);
+
+        assertThat(indexes).contains(
+                "idx_bookings_booker_start",
+                "idx_bookings_item_start",
+                "idx_bookings_item_status_end",
+                "idx_bookings_booker_item_status_end",
+                "idx_items_user_id",
+                "idx_items_next_booking_end",
+                "idx_comments_item_id",
+                "idx_comments_item_id_id",
+                "idx_requests_requester_created",
+                "idx_requests_created_id",
+                "idx_item_categories_cat_id",
+                "ux_users_email");
+    }
+
+    @Test
+    void ownerItemsUseIndex() {
+        assertThat(explain("select b.* from bookings b join items i on b.item_id = i.id "
+                + "where i.user_id = 1 order by b.start_date desc"))
+                .contains("IDX_ITEMS_USER_ID");
+    }
+
+    @Test
+    void lastBookingUsesIndex() {
+        assertThat(explain("select b.* from bookings b where b.item_id = 1 and b.status = 'A' "
+                + "and b.end_date < current_timestamp"))
+                .contains("IDX_BOOKINGS_ITEM_STATUS_END");
+    }
+
+    @Test
+    void itemOverlapCheckUsesIndex() {
+        assertThat(explain("select count(*) from bookings b where b.item_id = 1 and b.status in ('W', 'A') "
+                + "and b.start_date < current_timestamp and b.end_date > current_timestamp"))
+                .contains("IDX_BOOKINGS_ITEM_START");
+    }
+
+    @Test
+    void commentEligibilityUsesIndex() {
+        assertThat(explain("select b.end_date from bookings b where b.booker_id = 1 and b.item_id = 1 "
+                + "and b.status = 'A' order by b.end_date limit 1"))
+                .contains("IDX_BOOKINGS_BOOKER_ITEM_STATUS_END");
+    }
+
+    private String explain(String sql) {
+        return String.join("\n", jdbcTemplate.queryForList("explain " + sql, String.class));
+    }
+}
@@ -6,11 +6,19 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
 import ru.practicum.shareit.authentication.service.AuthenticationServiceImpl;
+import ru.practicum.shareit.authentication.service.PasswordHashingService;
+import ru.practicum.shareit.exception.AlreadyExistException;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.UserRepository;
+import ru.practicum.shareit.user.service.RegisteredEmailFilter;
 
+import java.sql.SQLException;
+
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -20,7 +28,10 @@ class AuthenticationServiceTest {
     private UserRepository userRepository;
 
     @Mock
-    private PasswordEncoder passwordEncoder;
+    private PasswordHashingService passwordHashingService;
+
+    @Mock
+    private RegisteredEmailFilter registeredEmailFilter;
 
     @InjectMocks
     private AuthenticationServiceImpl authenticationService;
@@ -42,15 +53,15 @@ class AuthenticationServiceTest {
     @Test
     void register_ShouldEncodePasswordAndSaveUser() {
         // Arrange
-        when(passwordEncoder.encode(user.getPassword())).thenReturn(encodedPassword);
-        when(userRepository.save(any(User.class))).thenReturn(user);
+        when(passwordHashingService.encode(user.getPassword())).thenReturn(encodedPassword);
+        when(userRepository.saveAndFlush(any(User.class))).thenReturn(user);
 
         // Act
         authenticationService.register(user);
 
         // Assert
-        verify(passwordEncoder).encode("rawPassword");
-        verify(userRepository).save(argThat(savedUser ->
+        verify(passwordHashingService).encode("rawPassword");
+        verify(userRepository).saveAndFlush(argThat(savedUser ->
                 savedUser.getPassword().equals(encodedPassword) &&
                         savedUser.getEmail().equals("test@example.com")
         ));
@@ -60,13 +71,13 @@ class AuthenticationServiceTest {
     void register_ShouldHandlePasswordEncodingCorrectly() {
         // Arrange
         String differentPassword = "differentEncodedPassword";
-        when(passwordEncoder.encode(user.getPassword())).thenReturn(differentPassword);
+        when(passwordHashingService.encode(user.getPassword())).thenReturn(differentPassword);
 
         // Act
         authenticationService.register(user);
 
         // Assert
-        verify(userRepository).save(argThat(savedUser ->
+        verify(userRepository).saveAndFlush(argThat(savedUser ->
                 savedUser.getPassword().equals(differentPassword)
         ));
     }
@@ -80,18 +91,66 @@ class AuthenticationServiceTest {
         fullUser.setName("Full User");
         fullUser.setPassword("fullPassword");
 
-        when(passwordEncoder.encode(fullUser.getPassword())).thenReturn("encodedFullPassword");
-        when(userRepository.save(any(User.class))).thenReturn(fullUser);
+        when(passwordHashingService.encode(fullUser.getPassword())).thenReturn("encodedFullPassword");
+        when(userRepository.saveAndFlush(any(User.class))).thenReturn(fullUser);
 
         // Act
         authenticationService.register(fullUser);
 
         // Assert
-        verify(userRepository).save(argThat(savedUser ->
+        verify(userRepository).saveAndFlush(argThat(savedUser ->
                 savedUser.getId() == 2L &&
                         savedUser.getEmail().equals("full@example.com") &&
                         savedUser.getName().equals("Full User") &&
                         savedUser.getPassword().equals("encodedFullPassword")
         ));
     }
+
+    @Test
+    void register_ShouldStoreEmailInLowerCase() {
+        user.setEmail(" Test@Example.COM ");
+        when(passwordHashingService.encode(user.getPassword())).thenReturn(encodedPassword);
+
+        authenticationService.register(user);
+
+        // дубликат, отличающийся регистром, сохраняется тем же значением и отклоняется уникальным индексом
+        verify(userRepository).saveAndFlush(argThat(savedUser -> savedUser.getEmail().equals("test@example.com")));
+        verify(registeredEmailFilter).add("test@example.com");
+    }
+
+    @Test
+    void register_ShouldAddEmailToFilter() {
+        when(passwordHashingService.encode(user.getPassword())).thenReturn(encodedPassword);
+
+        authenticationService.register(user);
+
+        verify(registeredEmailFilter).add("test@example.com");
+    }
+
+    @Test
+    void register_ShouldThrowAlreadyExistException_WhenEmailIsTaken() {
+        when(passwordHashingService.encode(user.getPassword())).thenReturn(encodedPassword);
+        when(userRepository.saveAndFlush(any(User.class)))
+                .thenThrow(violationOf("ux_users_email_lower"));
+
+        assertThrows(AlreadyExistException.class, () -> authenticationService.register(user));
+        verifyNoInteractions(registeredEmailFilter);
+    }
+
+    @Test
+    void register_ShouldRethrowOtherIntegrityViolations() {
+        DataIntegrityViolationException violation = violationOf("users_name_check");
+        when(passwordHashingService.encode(user.getPassword())).thenReturn(encodedPassword);
+        when(userRepository.saveAndFlush(any(User.class))).thenThrow(violation);
+
+        DataIntegrityViolationException thrown = assertThrows(DataIntegrityViolationException.class,
+                () -> authenticationService.register(user));
+        assertSame(violation, thrown);
+        verifyNoInteractions(registeredEmailFilter);
+    }
+
+    private static DataIntegrityViolationException violationOf(String constraint) {
+        return new DataIntegrityViolationException("could not execute statement",
+                new ConstraintViolationException("could not execute statement", new SQLException(), constraint));
+    }
 }
@@ -0,0 +1,108 @@
+package ru.practicum.shareit.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.booking.service.BookingCalendar;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class BookingCalendarTest {
+
+    private final LocalDateTime base = LocalDateTime.now().plusDays(1).withNano(0);
+
+    @Mock
+    private BookingRepository bookingRepository;
+
+    @InjectMocks
+    private BookingCalendar bookingCalendar;
+
+    @Test
+    void reserveRejectsOverlappingPeriods() {
+        when(bookingRepository.findActiveBookingsByItemId(eq(1L), anyCollection(), any())).thenReturn(List.of());
+
+        assertThat(bookingCalendar.reserve(1L, base, base.plusDays(2))).isTrue();
+        assertThat(bookingCalendar.reserve(1L, base.plusDays(1), base.plusDays(3))).isFalse();
+        assertThat(bookingCalendar.reserve(1L, base.minusDays(1), base.plusHours(1))).isFalse();
+        assertThat(bookingCalendar.reserve(1L, base.plusHours(1), base.plusHours(2))).isFalse();
+        assertThat(bookingCalendar.reserve(1L, base.minusDays(1), base.plusDays(3))).isFalse();
+    }
+
+    @Test
+    void reserveAllowsAdjacentPeriods() {
+        when(bookingRepository.findActiveBookingsByItemId(eq(1L), anyCollection(), any())).thenReturn(List.of());
+
+        assertThat(bookingCalendar.reserve(1L, base, base.plusDays(1))).isTrue();
+        assertThat(bookingCalendar.reserve(1L, base.plusDays(1), base.plusDays(2))).isTrue();
+        assertThat(bookingCalendar.reserve(1L, base.minusDays(1), base)).isTrue();
+    }
+
+    @Test
+    void calendarIsLoadedOncePerItem() {
+        Booking existing = Booking.builder().start(base).end(base.plusDays(1)).build();
+        when(bookingRepository.findActiveBookingsByItemId(eq(1L), anyCollection(), any()))
+                .thenReturn(List.of(existing));
+        when(bookingRepository.findActiveBookingsByItemId(eq(2L), anyCollection(), any())).thenReturn(List.of());
+
+        assertThat(bookingCalendar.reserve(1L, base.plusHours(1), base.plusHours(2))).isFalse();
+        assertThat(bookingCalendar.reserve(1L, base.plusDays(1), base.plusDays(2))).isTrue();
+        assertThat(bookingCalendar.reserve(2L, base.plusHours(1), base.plusHours(2))).isTrue();
+
+        verify(bookingRepository, times(1)).findActiveBookingsByItemId(eq(1L), anyCollection(), any());
+    }
+
+    @Test
+    void releaseFreesPeriod() {
+        when(bookingRepository.findActiveBookingsByItemId(eq(1L), anyCollection(), any())).thenReturn(List.of());
+
+        bookingCalendar.reserve(1L, base, base.plusDays(1));
+        bookingCalendar.release(1L, base, base.plusDays(1));
+
+        assertThat(bookingCalendar.reserve(1L, base.plusHours(1), base.plusHours(2))).isTrue();
+    }
+
+    @Test
+    void releaseOfMergedLegacyBookingFreesOnlyItsPart() {
+        when(bookingRepository.findActiveBookingsByItemId(eq(1L), anyCollection(), any())).thenReturn(List.of(
+                Booking.builder().start(base).end(base.plusDays(2)).build(),
+                Booking.builder().start(base.plusDays(1)).end(base.plusDays(3)).build(),
+                Booking.builder().start(base.plusDays(1)).end(base.plusDays(4)).build()));
+        assertThat(bookingCalendar.reserve(1L, base.plusHours(1), base.plusHours(2))).isFalse();
+
+        bookingCalendar.release(1L, base, base.plusDays(2));
+        bookingCalendar.release(1L, base.plusDays(1), base.plusDays(4));
+
+        assertThat(bookingCalendar.reserve(1L, base.plusDays(3), base.plusDays(4))).isTrue();
+        assertThat(bookingCalendar.reserve(1L, base.plusDays(2), base.plusDays(3))).isFalse();
+        assertThat(bookingCalendar.reserve(1L, base, base.plusDays(1))).isTrue();
+    }
+
+    @Test
+    void invalidateDropsRangeThatDatabaseNoLongerHas() {
+        Booking freedElsewhere = Booking.builder().start(base).end(base.plusDays(1)).build();
+        when(bookingRepository.findActiveBookingsByItemId(eq(1L), anyCollection(), any()))
+                .thenReturn(List.of(freedElsewhere))
+                .thenReturn(List.of());
+        assertThat(bookingCalendar.reserve(1L, base.plusHours(1), base.plusHours(2))).isFalse();
+
+        bookingCalendar.invalidate(1L);
+
+        assertThat(bookingCalendar.isTaken(1L, base.plusHours(1), base.plusHours(2))).isFalse();
+        assertThat(bookingCalendar.reserve(1L, base.plusHours(1), base.plusHours(2))).isTrue();
+        verify(bookingRepository, times(2)).findActiveBookingsByItemId(eq(1L), anyCollection(), any());
+    }
+}
@@ -0,0 +1,139 @@
+package ru.practicum.shareit.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import ru.practicum.shareit.booking.dto.BookingStateDto;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.booking.service.BookingCalendar;
+import ru.practicum.shareit.booking.service.BookingLifecycleEngine;
+import ru.practicum.shareit.booking.service.ItemBookingPointers;
+import ru.practicum.shareit.booking.service.OwnerBookingCounters;
+import ru.practicum.shareit.item.model.Item;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class BookingLifecycleEngineTest {
+
+    private final LocalDateTime now = LocalDateTime.now().withNano(0);
+
+    @Mock
+    private BookingRepository bookingRepository;
+
+    @Mock
+    private BookingCalendar bookingCalendar;
+
+    @Mock
+    private OwnerBookingCounters ownerBookingCounters;
+
+    @Mock
+    private ItemBookingPointers itemBookingPointers;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private BookingLifecycleEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        engine = new BookingLifecycleEngine(bookingRepository, bookingCalendar, ownerBookingCounters,
+                itemBookingPointers, transactionManager, 1000, 64);
+    }
+
+    @Test
+    void expiresWaitingBookingsAfterStartInOneUpdate() {
+        Booking first = booking(1L, 10L);
+        Booking second = booking(2L, 20L);
+        engine.scheduleExpiry(1L, 5L, first.getStart());
+        engine.scheduleExpiry(2L, 5L, second.getStart());
+        engine.scheduleExpiry(3L, 5L, now.plusDays(1));
+        when(bookingRepository.findStartedForUpdate(eq(List.of(1L, 2L)), eq(BookingStatus.WAITING), any()))
+                .thenReturn(List.of(first, second));
+
+        engine.advance(now.plusHours(2));
+
+        verify(bookingRepository).updateStatusByIdIn(List.of(1L, 2L), BookingStatus.CANCELED);
+        verify(bookingCalendar).release(10L, first.getStart(), first.getEnd());
+        verify(bookingCalendar).release(20L, second.getStart(), second.getEnd());
+        verify(ownerBookingCounters, times(2)).onStatusChanged(5L, BookingStatus.WAITING, BookingStatus.CANCELED);
+    }
+
+    @Test
+    void skipsBookingsDecidedBeforeStart() {
+        engine.scheduleExpiry(1L, 5L, now.plusHours(1));
+        when(bookingRepository.findStartedForUpdate(anyCollection(), any(), any())).thenReturn(List.of());
+
+        engine.advance(now.plusHours(2));
+
+        verify(bookingRepository, never()).updateStatusByIdIn(anyCollection(), any());
+        verifyNoInteractions(bookingCalendar);
+    }
+
+    @Test
+    void prunesCalendarWhenApprovedBookingEnds() {
+        engine.scheduleEnd(10L, now.plusHours(1));
+
+        engine.advance(now.plusMinutes(30));
+        verifyNoInteractions(bookingCalendar);
+
+        LocalDateTime later = now.plusHours(1).plusSeconds(1);
+        engine.advance(later);
+        verify(bookingCalendar).pruneEnded(10L, later);
+        verify(itemBookingPointers).refresh(10L, later);
+        verifyNoInteractions(bookingRepository);
+    }
+
+    @Test
+    void loadSchedulesUpcomingBoundaries() {
+        LocalDateTime start = now.plusHours(1);
+        LocalDateTime end = now.plusHours(3);
+        when(bookingRepository.findUpcomingBoundaries(eq(BookingStatus.WAITING),
+                eq(BookingStatus.APPROVED), any())).thenReturn(List.of(
+                new BookingStateDto(1L, 10L, 5L, BookingStatus.WAITING, 0L, start, end),
+                new BookingStateDto(2L, 20L, 5L, BookingStatus.APPROVED, 1L, start, end)));
+        when(bookingRepository.findStartedForUpdate(eq(List.of(1L)), any(), any())).thenReturn(List.of());
+
+        engine.load();
+        engine.advance(end.plusSeconds(1));
+
+        verify(bookingRepository).findStartedForUpdate(eq(List.of(1L)), any(), any());
+        verify(bookingCalendar).pruneEnded(eq(20L), any());
+        verify(itemBookingPointers).refresh(eq(20L), any());
+    }
+
+    @Test
+    void loadRefreshesPointersThatEndedWhileStopped() {
+        when(itemBookingPointers.findStale(any())).thenReturn(List.of(30L));
+
+        engine.load();
+
+        verify(itemBookingPointers).refresh(eq(30L), any());
+    }
+
+    private Booking booking(Long id, Long itemId) {
+        return Booking.builder()
+                .id(id)
+                .item(Item.builder().id(itemId).build())
+                .start(now.plusHours(1))
+                .end(now.plusHours(3))
+                .status(BookingStatus.WAITING)
+                .version(0L)
+                .build();
+    }
+}
@@ -2,19 +2,31 @@ package ru.practicum.shareit.service;
 
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.security.test.context.support.WithMockUser;
+import ru.practicum.shareit.booking.repository.BookingBatchRepository;
 import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.booking.dto.BookingCursor;
+import ru.practicum.shareit.booking.dto.BookingDecisionDto;
+import ru.practicum.shareit.booking.dto.BookingDecisionResultDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.BookingStateDto;
 import ru.practicum.shareit.booking.dto.BookingUpdateDto;
 import ru.practicum.shareit.booking.dto.RequestBookingStatus;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.service.BookingCalendar;
+import ru.practicum.shareit.booking.service.BookingLifecycleEngine;
 import ru.practicum.shareit.booking.service.BookingServiceImpl;
+import ru.practicum.shareit.booking.service.ItemAdmissionGate;
+import ru.practicum.shareit.booking.service.ItemBookingPointers;
+import ru.practicum.shareit.booking.service.OwnerBookingCounters;
+import ru.practicum.shareit.exception.ConflictException;
 import ru.practicum.shareit.exception.IdNotFoundException;
 import ru.practicum.shareit.exception.ItemNotAvailableException;
 import ru.practicum.shareit.exception.ValidateException;
@@ -23,10 +35,12 @@ import ru.practicum.shareit.item.repository.ItemRepository;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.service.UserService;
 
-import javax.persistence.EntityManager;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Supplier;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
@@ -39,9 +53,6 @@ public class BookingServiceTest {
     @Mock
     private BookingRepository bookingRepository;
 
-    @Mock
-    private EntityManager entityManager;
-
     @Mock
     private ItemRepository itemRepository;
 
@@ -51,6 +62,24 @@ public class BookingServiceTest {
     @Mock
     private UserService userService;
 
+    @Mock
+    private BookingCalendar bookingCalendar;
+
+    @Mock
+    private BookingBatchRepository bookingBatchRepository;
+
+    @Mock
+    private BookingLifecycleEngine bookingLifecycleEngine;
+
+    @Mock
+    private OwnerBookingCounters ownerBookingCounters;
+
+    @Mock
+    private ItemAdmissionGate itemAdmissionGate;
+
+    @Mock
+    private ItemBookingPointers itemBookingPointers;
+
     private final User testUser = User.builder()
             .id(1L)
             .name("name")
@@ -71,7 +100,8 @@ public class BookingServiceTest {
             .end(LocalDateTime.now().plusDays(2))
             .item(testItem)
             .booker(testUser)
-            .status(BookingStatus.WAITING.name())
+            .status(BookingStatus.WAITING)
+            .version(0L)
             .build();
 
     @Test
@@ -104,6 +134,7 @@ public class BookingServiceTest {
                 .start(LocalDateTime.now().plusDays(1))
                 .end(LocalDateTime.now().plusDays(2))
                 .build();
+        passAdmissionGate();
 
         when(userService.getAuthenticatedUser()).thenReturn(testUser);
 
@@ -117,6 +148,7 @@ public class BookingServiceTest {
                 .start(LocalDateTime.now().plusDays(1))
                 .end(LocalDateTime.now().plusDays(2))
                 .build();
+        passAdmissionGate();
 
         when(itemRepository.findById(anyLong())).thenReturn(Optional.empty());
 
@@ -131,6 +163,7 @@ public class BookingServiceTest {
                 .start(LocalDateTime.now().plusDays(1))
                 .end(LocalDateTime.now().plusDays(2))
                 .build();
+        passAdmissionGate();
 
         when(itemRepository.findById(anyLong())).thenReturn(Optional.of(testItem));
         when(userService.getAuthenticatedUser()).thenReturn(testUser);
@@ -142,6 +175,7 @@ public class BookingServiceTest {
     @WithMockUser
     void create_shouldThrowExceptionWhenItemNotAvailable() {
         User anotherUser = User.builder().id(2L).build();
+        passAdmissionGate();
         BookingUpdateDto dto = BookingUpdateDto.builder()
                 .itemId(1L)
                 .start(LocalDateTime.now().plusDays(1))
@@ -167,6 +201,7 @@ public class BookingServiceTest {
     @Test
     void create_shouldCreateBookingSuccessfully() {
         User anotherUser = User.builder().id(2L).build();
+        passAdmissionGate();
         BookingUpdateDto dto = BookingUpdateDto.builder()
                 .itemId(1L)
                 .start(LocalDateTime.now().plusDays(1))
@@ -185,6 +220,7 @@ public class BookingServiceTest {
 
         when(itemRepository.findById(anyLong())).thenReturn(Optional.of(testItem));
         when(itemRepository.isItemAvailable(anyLong())).thenReturn(true);
+        when(bookingCalendar.reserve(eq(1L), any(), any())).thenReturn(true);
         when(bookingRepository.save(any())).thenReturn(testBooking);
 
         BookingDto result = bookingService.create(dto);
@@ -192,6 +228,94 @@ public class BookingServiceTest {
         assertThat(result).isNotNull();
         assertThat(result.getId()).isEqualTo(testBooking.getId());
         verify(bookingRepository).save(any());
+        verify(itemAdmissionGate).admit(eq(1L), any());
+        verify(bookingLifecycleEngine).scheduleExpiry(testBooking.getId(), 2L, testBooking.getStart());
+        verify(ownerBookingCounters).onCreated(2L, testBooking.getStart(), testBooking.getEnd());
+    }
+
+    @Test
+    void create_shouldThrowExceptionWhenPeriodOverlaps() {
+        User anotherUser = User.builder().id(2L).build();
+        passAdmissionGate();
+        BookingUpdateDto dto = BookingUpdateDto.builder()
+                .itemId(1L)
+                .start(LocalDateTime.now().plusDays(1))
+                .end(LocalDateTime.now().plusDays(2))
+                .build();
+
+        when(userService.getAuthenticatedUser()).thenReturn(testUser);
+        when(itemRepository.findById(anyLong()))
+                .thenReturn(Optional.of(testItem.toBuilder().owner(anotherUser).build()));
+        when(itemRepository.isItemAvailable(anyLong())).thenReturn(true);
+        when(bookingCalendar.reserve(1L, dto.getStart(), dto.getEnd())).thenReturn(false);
+
+        assertThrows(ItemNotAvailableException.class, () -> bookingService.create(dto));
+        verify(bookingRepository, never()).save(any());
+    }
+
+    @Test
+    void create_shouldRecheckOverlapInDatabaseWhenGateIsClusterWide() {
+        User anotherUser = User.builder().id(2L).build();
+        BookingUpdateDto dto = BookingUpdateDto.builder()
+                .itemId(1L)
+                .start(LocalDateTime.now().plusDays(1))
+                .end(LocalDateTime.now().plusDays(2))
+                .build();
+        passAdmissionGate();
+
+        when(userService.getAuthenticatedUser()).thenReturn(testUser);
+        when(itemRepository.findById(anyLong()))
+                .thenReturn(Optional.of(testItem.toBuilder().owner(anotherUser).build()));
+        when(itemRepository.isItemAvailable(anyLong())).thenReturn(true);
+        when(itemAdmissionGate.isClusterWide()).thenReturn(true);
+        when(bookingRepository.existsOverlapping(1L, List.of(BookingStatus.WAITING, BookingStatus.APPROVED),
+                dto.getStart(), dto.getEnd())).thenReturn(true);
+
+        assertThrows(ItemNotAvailableException.class, () -> bookingService.create(dto));
+        verify(bookingCalendar, never()).reserve(anyLong(), any(), any());
+        verify(bookingRepository, never()).save(any());
+    }
+
+    @Test
+    void create_shouldTrustDatabaseOverStaleCalendarWhenGateIsClusterWide() {
+        User anotherUser = User.builder().id(2L).build();
+        BookingUpdateDto dto = BookingUpdateDto.builder()
+                .itemId(1L)
+                .start(LocalDateTime.now().plusDays(1))
+                .end(LocalDateTime.now().plusDays(2))
+                .build();
+        passAdmissionGate();
+
+        when(userService.getAuthenticatedUser()).thenReturn(testUser);
+        when(itemRepository.findById(anyLong()))
+                .thenReturn(Optional.of(testItem.toBuilder().owner(anotherUser).build()));
+        when(itemRepository.isItemAvailable(anyLong())).thenReturn(true);
+        when(itemAdmissionGate.isClusterWide()).thenReturn(true);
+        when(bookingRepository.existsOverlapping(1L, List.of(BookingStatus.WAITING, BookingStatus.APPROVED),
+                dto.getStart(), dto.getEnd())).thenReturn(false);
+        when(bookingRepository.save(any())).thenReturn(testBooking);
+
+        assertThat(bookingService.create(dto).getId()).isEqualTo(testBooking.getId());
+
+        InOrder calendar = inOrder(bookingCalendar);
+        calendar.verify(bookingCalendar).invalidate(1L);
+        calendar.verify(bookingCalendar).reserve(1L, dto.getStart(), dto.getEnd());
+        verify(bookingCalendar, never()).isTaken(anyLong(), any(), any());
+    }
+
+    @Test
+    void create_shouldRejectKnownOverlapBeforeWaitingForItem() {
+        BookingUpdateDto dto = BookingUpdateDto.builder()
+                .itemId(1L)
+                .start(LocalDateTime.now().plusDays(1))
+                .end(LocalDateTime.now().plusDays(2))
+                .build();
+
+        when(bookingCalendar.isTaken(1L, dto.getStart(), dto.getEnd())).thenReturn(true);
+
+        assertThrows(ItemNotAvailableException.class, () -> bookingService.create(dto));
+        verify(itemAdmissionGate, never()).admit(anyLong(), any());
+        verifyNoInteractions(itemRepository, bookingRepository);
     }
 
     @Test
@@ -204,7 +328,7 @@ public class BookingServiceTest {
 
     @Test
     void updateBooking_shouldThrowExceptionWhenBookingNotFound() {
-        when(bookingRepository.findById(anyLong())).thenReturn(Optional.empty());
+        when(bookingRepository.findWithItemById(anyLong())).thenReturn(Optional.empty());
         when(userService.getAuthenticatedUser()).thenReturn(testUser);
 
         assertThrows(IdNotFoundException.class,
@@ -214,12 +338,12 @@ public class BookingServiceTest {
     @Test
     void updateBooking_shouldThrowExceptionWhenStatusAlreadyApproved() {
         Booking approvedBooking = testBooking.toBuilder()
-                .status(BookingStatus.APPROVED.name())
+                .status(BookingStatus.APPROVED)
                 .build();
 
 
         when(userService.getAuthenticatedUser()).thenReturn(testUser);
-        when(bookingRepository.findById(anyLong())).thenReturn(Optional.of(approvedBooking));
+        when(bookingRepository.findWithItemById(anyLong())).thenReturn(Optional.of(approvedBooking));
 
         assertThrows(ValidateException.class,
                 () -> bookingService.updateBooking(1L, true));
@@ -228,12 +352,92 @@ public class BookingServiceTest {
     @Test
     void updateBooking_shouldUpdateStatusToApproved() {
         when(userService.getAuthenticatedUser()).thenReturn(testUser);
-        when(bookingRepository.findById(anyLong())).thenReturn(Optional.of(testBooking));
-        when(itemRepository.findById(anyLong())).thenReturn(Optional.of(testItem));
+        when(bookingRepository.findWithItemById(anyLong())).thenReturn(Optional.of(testBooking));
+
+        when(bookingRepository.approveIfUnchanged(1L, BookingStatus.WAITING, BookingStatus.APPROVED,
+                0L, 1L, testBooking.getStart(), testBooking.getEnd())).thenReturn(1);
 
         BookingDto result = bookingService.updateBooking(1L, true);
 
-        assertThat(result.getStatus()).isEqualTo(BookingStatus.WAITING.name());
+        assertThat(result.getStatus()).isEqualTo(BookingStatus.APPROVED);
+        verify(itemRepository, never()).updateItemAvailableById(anyLong(), anyBoolean());
+        verify(bookingRepository, never()).findById(anyLong());
+        verify(bookingLifecycleEngine).scheduleEnd(1L, testBooking.getEnd());
+        verify(ownerBookingCounters).onStatusChanged(1L, BookingStatus.WAITING, BookingStatus.APPROVED);
+    }
+
+    @Test
+    void updateBooking_shouldReleaseSlotWhenRejected() {
+        when(userService.getAuthenticatedUser()).thenReturn(testUser);
+        when(bookingRepository.findWithItemById(anyLong())).thenReturn(Optional.of(testBooking));
+
+        when(bookingRepository.updateStatusIfUnchanged(1L, BookingStatus.WAITING,
+                BookingStatus.REJECTED, 0L)).thenReturn(1);
+
+        bookingService.updateBooking(1L, false);
+
+        verify(bookingCalendar).release(1L, testBooking.getStart(), testBooking.getEnd());
+    }
+
+    @Test
+    void updateBooking_shouldThrowConflictWhenBookingChangedConcurrently() {
+        when(userService.getAuthenticatedUser()).thenReturn(testUser);
+        when(bookingRepository.findWithItemById(anyLong())).thenReturn(Optional.of(testBooking));
+        when(bookingRepository.approveIfUnchanged(anyLong(), any(), any(), anyLong(), anyLong(),
+                any(), any())).thenReturn(0);
+
+        assertThrows(ConflictException.class, () -> bookingService.updateBooking(1L, true));
+    }
+
+    @Test
+    void updateBooking_shouldThrowExceptionWhenAlreadyRejected() {
+        when(userService.getAuthenticatedUser()).thenReturn(testUser);
+        when(bookingRepository.findWithItemById(anyLong())).thenReturn(Optional.of(testBooking.toBuilder()
+                .status(BookingStatus.REJECTED)
+                .build()));
+
+        assertThrows(ValidateException.class, () -> bookingService.updateBooking(1L, true));
+        verifyNoInteractions(bookingCalendar);
+    }
+
+    @Test
+    void updateBookings_shouldReturnResultPerDecision() {
+        User owner = testUser;
+        LocalDateTime start = testBooking.getStart();
+        LocalDateTime end = testBooking.getEnd();
+        BookingStateDto waiting = new BookingStateDto(1L, 1L, owner.getId(), BookingStatus.WAITING, 0L, start, end);
+        BookingStateDto foreign = new BookingStateDto(2L, 2L, 99L, BookingStatus.WAITING, 0L, start, end);
+        BookingStateDto approved = new BookingStateDto(3L, 1L, owner.getId(), BookingStatus.APPROVED, 1L, start, end);
+        BookingStateDto toReject = new BookingStateDto(4L, 3L, owner.getId(), BookingStatus.WAITING, 2L, start, end);
+        BookingStateDto stale = new BookingStateDto(5L, 4L, owner.getId(), BookingStatus.WAITING, 0L, start, end);
+
+        when(userService.getAuthenticatedUser()).thenReturn(owner);
+        when(bookingRepository.findStatesByIdIn(Set.of(1L, 2L, 3L, 4L, 5L, 6L)))
+                .thenReturn(List.of(waiting, foreign, approved, toReject, stale));
+        when(bookingBatchRepository.reject(List.of(toReject))).thenReturn(new int[]{1});
+        when(bookingBatchRepository.approve(List.of(waiting, stale))).thenReturn(new int[]{1, 0});
+
+        List<BookingDecisionResultDto> results = bookingService.updateBookings(List.of(
+                new BookingDecisionDto(1L, true),
+                new BookingDecisionDto(2L, true),
+                new BookingDecisionDto(3L, false),
+                new BookingDecisionDto(4L, false),
+                new BookingDecisionDto(5L, true),
+                new BookingDecisionDto(6L, true),
+                new BookingDecisionDto(1L, false)));
+
+        assertThat(results).extracting(BookingDecisionResultDto::getBookingId)
+                .containsExactly(1L, 2L, 3L, 4L, 5L, 6L, 1L);
+        assertThat(results).extracting(BookingDecisionResultDto::getStatus)
+                .containsExactly(BookingStatus.APPROVED, null, null, BookingStatus.REJECTED, null, null, null);
+        assertThat(results.get(1).getError()).contains("не найдено");
+        assertThat(results.get(2).getError()).contains("APPROVED");
+        assertThat(results.get(4).getError()).isNotNull();
+        assertThat(results.get(6).getError()).contains("Повторное");
+        verify(bookingCalendar).release(3L, start, end);
+        verify(bookingCalendar, never()).release(eq(1L), any(), any());
+        verify(bookingLifecycleEngine).scheduleEnd(1L, end);
+        verify(bookingLifecycleEngine, never()).scheduleEnd(eq(4L), any());
     }
 
     @Test
@@ -251,7 +455,7 @@ public class BookingServiceTest {
 
     @Test
     void getBookingsByUser_shouldReturnBookings() {
-        when(bookingRepository.findBookingByBookerIdOrderByStartDesc(anyLong(), any(Pageable.class)))
+        when(bookingRepository.findBookingByBookerIdOrderByStartDescIdDesc(anyLong(), any(Pageable.class)))
                 .thenReturn(List.of(testBooking));
 
         when(userService.getAuthenticatedUser()).thenReturn(testUser);
@@ -266,8 +470,8 @@ public class BookingServiceTest {
     @Test
     @WithMockUser
     void getBookingStatusByOwner_shouldReturnBookings() {
-        when(itemRepository.findItemsByOwnerId(anyLong())).thenReturn(List.of(testItem));
-        when(bookingRepository.findBookingsByItem_OwnerIdOrderByStartDesc(anyLong(), any(Pageable.class)))
+        when(itemRepository.existsByOwnerId(anyLong())).thenReturn(true);
+        when(bookingRepository.findBookingsByItem_OwnerIdOrderByStartDescIdDesc(anyLong(), any(Pageable.class)))
                 .thenReturn(List.of(testBooking));
 
 
@@ -279,4 +483,71 @@ public class BookingServiceTest {
         assertThat(result).hasSize(1);
         assertThat(result.get(0).getId()).isEqualTo(testBooking.getId());
     }
-}
\ No newline at end of file
+
+    @Test
+    void getBookingStatusByOwner_shouldThrowExceptionWhenOwnerHasNoItems() {
+        when(userService.getAuthenticatedUser()).thenReturn(testUser);
+        when(itemRepository.existsByOwnerId(1L)).thenReturn(false);
+
+        assertThrows(IdNotFoundException.class,
+                () -> bookingService.getBookingStatusByOwner(RequestBookingStatus.ALL, PageRequest.of(0, 10)));
+        verifyNoInteractions(bookingRepository);
+    }
+
+    @Test
+    void getBookingStatusByOwner_shouldThrowExceptionWhenOwnerHasNoItemsOnCursorPage() {
+        when(userService.getAuthenticatedUser()).thenReturn(testUser);
+        when(itemRepository.existsByOwnerId(1L)).thenReturn(false);
+
+        assertThrows(IdNotFoundException.class, () -> bookingService.getBookingStatusByOwner(RequestBookingStatus.ALL,
+                new BookingCursor(LocalDateTime.now(), 5L), 10));
+        verifyNoInteractions(bookingRepository);
+    }
+
+    @Test
+    void getOwnerSummary_shouldReadCounters() {
+        Map<RequestBookingStatus, Long> summary = Map.of(RequestBookingStatus.WAITING, 3L);
+        when(userService.getAuthenticatedUser()).thenReturn(testUser);
+        when(ownerBookingCounters.get(1L)).thenReturn(summary);
+
+        assertThat(bookingService.getOwnerSummary()).isSameAs(summary);
+        verifyNoInteractions(bookingRepository, itemRepository);
+    }
+
+    @Test
+    void getBookingsByUser_shouldUseCursor() {
+        LocalDateTime start = LocalDateTime.now();
+        when(bookingRepository.findBookerPageByStatusAfter(1L, BookingStatus.WAITING, start, 5L,
+                PageRequest.of(0, 10)))
+                .thenReturn(List.of(testBooking));
+        when(userService.getAuthenticatedUser()).thenReturn(testUser);
+
+        List<BookingDto> result = bookingService.getBookingsByUser(RequestBookingStatus.WAITING,
+                new BookingCursor(start, 5L), 10);
+
+        assertThat(result).hasSize(1);
+        verify(bookingRepository, never())
+                .findBookingByBookerIdAndStatusOrderByStartDescIdDesc(anyLong(), any(), any());
+    }
+
+    @Test
+    void getBookingStatusByOwner_shouldUseCursor() {
+        LocalDateTime start = LocalDateTime.now();
+        when(bookingRepository.findOwnerPastPageAfter(eq(1L), any(LocalDateTime.class), eq(start), eq(5L),
+                eq(PageRequest.of(0, 10))))
+                .thenReturn(List.of(testBooking));
+        when(userService.getAuthenticatedUser()).thenReturn(testUser);
+        when(itemRepository.existsByOwnerId(1L)).thenReturn(true);
+
+        List<BookingDto> result = bookingService.getBookingStatusByOwner(RequestBookingStatus.PAST,
+                new BookingCursor(start, 5L), 10);
+
+        assertThat(result).hasSize(1);
+        assertThat(result.get(0).getId()).isEqualTo(testBooking.getId());
+    }
+
+    private void passAdmissionGate() {
+        when(itemAdmissionGate.admit(anyLong(), any())).thenAnswer(invocation ->
+                invocation.<Supplier<?>>getArgument(1).get());
+    }
+}
@@ -0,0 +1,88 @@
+package ru.practicum.shareit.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.practicum.shareit.category.model.Category;
+import ru.practicum.shareit.item.dto.ItemResponseDto;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.service.CatalogSnapshot;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class CatalogSnapshotTest {
+
+    @Mock
+    private ItemRepository itemRepository;
+
+    @InjectMocks
+    private CatalogSnapshot catalogSnapshot;
+
+    private final Category home = new Category(1L, "Для дома");
+    private final Category garden = new Category(2L, "Для сада");
+
+    @Test
+    void rebuildGroupsItemsByCategorySet() {
+        when(itemRepository.findAllWithCategories()).thenReturn(List.of(
+                item(1L, "дрель", Set.of(garden, home)),
+                item(2L, "лопата", Set.of(garden)),
+                item(3L, "пила", Set.of(home, garden))));
+
+        catalogSnapshot.rebuild();
+        Map<String, List<ItemResponseDto>> result = catalogSnapshot.get();
+
+        assertThat(result).containsOnlyKeys("(Для дома, Для сада)", "(Для сада)");
+        assertThat(result.get("(Для дома, Для сада)")).extracting(ItemResponseDto::getId).containsExactly(1L, 3L);
+        assertThat(result.get("(Для сада)")).extracting(ItemResponseDto::getId).containsExactly(2L);
+        assertThatThrownBy(() -> result.get("(Для сада)").clear())
+                .isInstanceOf(UnsupportedOperationException.class);
+    }
+
+    @Test
+    void putReplacesOnlyAffectedGroupWithoutTouchingReadLists() {
+        when(itemRepository.findAllWithCategories()).thenReturn(List.of(
+                item(1L, "дрель", Set.of(home)),
+                item(2L, "лопата", Set.of(garden))));
+        catalogSnapshot.rebuild();
+        List<ItemResponseDto> homeBefore = catalogSnapshot.get().get("(Для дома)");
+        List<ItemResponseDto> gardenBefore = catalogSnapshot.get().get("(Для сада)");
+
+        catalogSnapshot.put(ItemResponseDto.builder().id(1L).name("перфоратор").build(), "(Для дома)");
+        catalogSnapshot.put(ItemResponseDto.builder().id(3L).name("грабли").build(), "(Для кухни)");
+        Map<String, List<ItemResponseDto>> after = catalogSnapshot.get();
+
+        assertThat(homeBefore).extracting(ItemResponseDto::getName).containsExactly("дрель");
+        assertThat(after.get("(Для дома)")).extracting(ItemResponseDto::getName).containsExactly("перфоратор");
+        assertThat(after.get("(Для сада)")).isSameAs(gardenBefore);
+        assertThat(after.get("(Для кухни)")).extracting(ItemResponseDto::getName).containsExactly("грабли");
+        assertThatThrownBy(() -> after.remove("(Для сада)")).isInstanceOf(UnsupportedOperationException.class);
+    }
+
+    @Test
+    void putMovesItemBetweenGroups() {
+        catalogSnapshot.put(ItemResponseDto.builder().id(1L).name("дрель").build(), "(Для дома)");
+        catalogSnapshot.put(ItemResponseDto.builder().id(1L).name("дрель").build(), "(Для сада)");
+
+        assertThat(catalogSnapshot.get()).containsOnlyKeys("(Для сада)");
+    }
+
+    private Item item(Long id, String name, Set<Category> categories) {
+        return Item.builder()
+                .id(id)
+                .name(name)
+                .description(name)
+                .available(true)
+                .categories(categories)
+                .build();
+    }
+}
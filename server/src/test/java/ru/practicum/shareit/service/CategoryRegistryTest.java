@@ -0,0 +1,69 @@
+package ru.practicum.shareit.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.practicum.shareit.category.model.Category;
+import ru.practicum.shareit.category.repository.CategoryRepository;
+import ru.practicum.shareit.category.service.CategoryRegistry;
+import ru.practicum.shareit.exception.IdNotFoundException;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class CategoryRegistryTest {
+
+    @Mock
+    private CategoryRepository categoryRepository;
+
+    @InjectMocks
+    private CategoryRegistry categoryRegistry;
+
+    @Test
+    void resolveAfterReloadDoesNotQueryDatabase() {
+        when(categoryRepository.findAll()).thenReturn(List.of(
+                new Category(1L, "Для дома"),
+                new Category(1_000_000L, "Для сада")));
+        categoryRegistry.reload();
+
+        Set<Category> result = categoryRegistry.resolve(List.of(1L, 1_000_000L));
+
+        assertThat(result).extracting(Category::getTitle).containsExactlyInAnyOrder("Для дома", "Для сада");
+        assertThat(categoryRegistry.exists(1L)).isTrue();
+        verify(categoryRepository, never()).findById(anyLong());
+    }
+
+    @Test
+    void putMakesCategoryVisible() {
+        categoryRegistry.put(new Category(3L, "Инструменты"));
+
+        assertThat(categoryRegistry.findTitle(3L)).contains("Инструменты");
+        verifyNoInteractions(categoryRepository);
+    }
+
+    @Test
+    void missFallsBackToDatabaseOnce() {
+        when(categoryRepository.findById(5L)).thenReturn(Optional.of(new Category(5L, "Спорт")));
+
+        assertThat(categoryRegistry.findTitle(5L)).contains("Спорт");
+        assertThat(categoryRegistry.findTitle(5L)).contains("Спорт");
+
+        verify(categoryRepository, times(1)).findById(5L);
+    }
+
+    @Test
+    void resolveUnknownCategoryThrows() {
+        when(categoryRepository.findById(7L)).thenReturn(Optional.empty());
+
+        assertThrows(IdNotFoundException.class, () -> categoryRegistry.resolve(List.of(7L)));
+    }
+}
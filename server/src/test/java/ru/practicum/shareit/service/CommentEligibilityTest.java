@@ -0,0 +1,74 @@
+package ru.practicum.shareit.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.item.service.CommentEligibility;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class CommentEligibilityTest {
+
+    private final LocalDateTime now = LocalDateTime.of(2030, 1, 1, 12, 0);
+
+    @Mock
+    private BookingRepository bookingRepository;
+
+    private CommentEligibility eligibility;
+
+    @BeforeEach
+    void setUp() {
+        eligibility = new CommentEligibility(bookingRepository, 2, 1);
+    }
+
+    @Test
+    void cachesEligibilityOfRepeatCommenter() {
+        when(bookingRepository.findEarliestEnd(1L, 10L, BookingStatus.APPROVED, PageRequest.of(0, 1)))
+                .thenReturn(List.of(now.minusDays(1)));
+
+        assertThat(eligibility.isEligible(1L, 10L, now)).isTrue();
+        assertThat(eligibility.isEligible(1L, 10L, now.plusHours(1))).isTrue();
+
+        verify(bookingRepository, times(1)).findEarliestEnd(1L, 10L, BookingStatus.APPROVED,
+                PageRequest.of(0, 1));
+    }
+
+    @Test
+    void doesNotCacheRefusals() {
+        when(bookingRepository.findEarliestEnd(1L, 10L, BookingStatus.APPROVED, PageRequest.of(0, 1)))
+                .thenReturn(List.of(now.plusDays(1)));
+
+        assertThat(eligibility.isEligible(1L, 10L, now)).isFalse();
+        assertThat(eligibility.isEligible(1L, 10L, now)).isFalse();
+
+        verify(bookingRepository, times(2)).findEarliestEnd(1L, 10L, BookingStatus.APPROVED,
+                PageRequest.of(0, 1));
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedEntries() {
+        when(bookingRepository.findEarliestEnd(1L, 10L, BookingStatus.APPROVED, PageRequest.of(0, 1)))
+                .thenReturn(List.of(now.minusDays(1)));
+        when(bookingRepository.findEarliestEnd(1L, 11L, BookingStatus.APPROVED, PageRequest.of(0, 1)))
+                .thenReturn(List.of(now.minusDays(1)));
+
+        eligibility.isEligible(1L, 10L, now);
+        eligibility.isEligible(1L, 11L, now);
+        eligibility.isEligible(1L, 10L, now);
+
+        verify(bookingRepository, times(2)).findEarliestEnd(1L, 10L, BookingStatus.APPROVED,
+                PageRequest.of(0, 1));
+    }
+}
@@ -0,0 +1,30 @@
+package ru.practicum.shareit.service;
+
+import org.junit.jupiter.api.Test;
+import ru.practicum.shareit.user.service.DeletedUserRegistry;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DeletedUserRegistryTest {
+
+    @Test
+    void remembersDeletedUserForTokenLifetime() {
+        DeletedUserRegistry registry = new DeletedUserRegistry(Duration.ofHours(1));
+
+        registry.add(1L);
+
+        assertThat(registry.contains(1L)).isTrue();
+        assertThat(registry.contains(2L)).isFalse();
+    }
+
+    @Test
+    void forgetsDeletedUserAfterTokenLifetime() {
+        DeletedUserRegistry registry = new DeletedUserRegistry(Duration.ZERO);
+
+        registry.add(1L);
+
+        assertThat(registry.contains(1L)).isFalse();
+    }
+}
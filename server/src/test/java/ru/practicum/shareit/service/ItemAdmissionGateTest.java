@@ -0,0 +1,110 @@
+package ru.practicum.shareit.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.booking.service.ItemAdmissionGate;
+import ru.practicum.shareit.exception.TooManyRequestsException;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+@ExtendWith(MockitoExtension.class)
+class ItemAdmissionGateTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private ItemAdmissionGate gate;
+
+    @BeforeEach
+    void setUp() {
+        gate = new ItemAdmissionGate(jdbcTemplate, transactionManager, 16, 50, false);
+    }
+
+    @Test
+    void secondRequestForSameItemWaitsUntilFirstTransactionCompletes() throws Exception {
+        CountDownLatch admitted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<String> first = CompletableFuture.supplyAsync(() -> gate.admit(1L, () -> {
+            admitted.countDown();
+            await(release);
+            return "first";
+        }));
+        assertThat(admitted.await(5, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(admitInAnotherThread(1L)).isInstanceOf(TooManyRequestsException.class);
+        assertThat(admitInAnotherThread(2L)).isNull();
+
+        release.countDown();
+        assertThat(first.get(5, TimeUnit.SECONDS)).isEqualTo("first");
+        assertThat(admitInAnotherThread(1L)).isNull();
+    }
+
+    @Test
+    void releasesQueueWhenTransactionFails() throws Exception {
+        assertThatThrownBy(() -> gate.admit(1L, () -> {
+            throw new IllegalArgumentException("rollback");
+        })).isInstanceOf(IllegalArgumentException.class);
+
+        assertThat(admitInAnotherThread(1L)).isNull();
+    }
+
+    @Test
+    void takesAdvisoryLockInsideTransaction() {
+        ItemAdmissionGate clustered = new ItemAdmissionGate(jdbcTemplate, transactionManager, 16, 50, true);
+
+        assertThat(clustered.admit(7L, () -> "booked")).isEqualTo("booked");
+
+        InOrder order = inOrder(transactionManager, jdbcTemplate);
+        order.verify(transactionManager).getTransaction(any());
+        order.verify(jdbcTemplate).queryForList("select pg_advisory_xact_lock(?)", 7L);
+        order.verify(transactionManager).commit(any());
+    }
+
+    @Test
+    void refusesToWaitInsideTransaction() {
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        try {
+            assertThatThrownBy(() -> gate.admit(1L, () -> "booked")).isInstanceOf(IllegalStateException.class);
+        } finally {
+            TransactionSynchronizationManager.setActualTransactionActive(false);
+        }
+        verifyNoInteractions(jdbcTemplate, transactionManager);
+    }
+
+    private Throwable admitInAnotherThread(Long itemId) throws Exception {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                gate.admit(itemId, () -> "booked");
+                return (Throwable) null;
+            } catch (RuntimeException e) {
+                return e;
+            }
+        }).get(5, TimeUnit.SECONDS);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -11,17 +11,25 @@ import ru.practicum.shareit.authentication.config.JWTFilter;
 import ru.practicum.shareit.authentication.controller.AuthController;
 import ru.practicum.shareit.authentication.service.AuthenticationService;
 import ru.practicum.shareit.exception.IdNotFoundException;
+import ru.practicum.shareit.item.dto.ItemCategoryIdDto;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemResponseDto;
 import ru.practicum.shareit.item.repository.ItemRepository;
 import ru.practicum.shareit.request.repository.ItemRequestRepository;
+import ru.practicum.shareit.request.dto.ItemRequestCursor;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
+import ru.practicum.shareit.request.dto.ItemRequestFeedDto;
 import ru.practicum.shareit.request.dto.RequestDto;
+import ru.practicum.shareit.request.mapper.ItemRequestMapper;
 import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.request.service.ItemRequestServiceImpl;
+import ru.practicum.shareit.request.service.RecentRequestFeed;
 import ru.practicum.shareit.user.repository.UserRepository;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.service.UserService;
 import ru.practicum.shareit.utils.JWTUtil;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -61,6 +69,9 @@ public class ItemRequestServiceTest {
     @Mock
     private UserService userService;
 
+    @Mock
+    private RecentRequestFeed recentRequestFeed;
+
 
     @Test
     public void create() {
@@ -149,8 +160,8 @@ public class ItemRequestServiceTest {
                 .build();
         when(userService.getAuthenticatedUser()).thenReturn(user);
 
-        when(itemRequestRepository.findAllWithoutRequesterId(anyLong(), any()))
-                .thenReturn(List.of(itemRequest));
+        when(itemRequestRepository.findFeedPage(anyLong(), any()))
+                .thenReturn(List.of(ItemRequestMapper.itemRequestToItemRequestFeedDto(itemRequest)));
 
         List<ItemRequestDto> result = itemRequestService.getAll(PageRequest.ofSize(1));
         assertThat(result).isNotNull();
@@ -160,9 +171,66 @@ public class ItemRequestServiceTest {
         assertThat(result.get(0).getCreated()).isEqualTo(itemRequest.getCreated());
         assertThat(result.get(0).getItems()).isEmpty();
 
-        verify(itemRequestRepository, times(1)).findAllWithoutRequesterId(anyLong(), any());
+        verify(itemRequestRepository, times(1)).findFeedPage(anyLong(), any());
+    }
+
+    @Test
+    public void getAllServedFromFeed() {
+        User user = User.builder()
+                .id(1L)
+                .build();
+        ItemRequestFeedDto request = new ItemRequestFeedDto(3L, 2L, "description", LocalDateTime.now());
+        ItemRequestCursor after = new ItemRequestCursor(LocalDateTime.now().plusMinutes(1), 4L);
+        when(userService.getAuthenticatedUser()).thenReturn(user);
+        when(recentRequestFeed.page(1L, after, 0, 10)).thenReturn(Optional.of(List.of(request)));
+
+        List<ItemRequestDto> result = itemRequestService.getAll(after, 10);
+
+        assertThat(result).extracting(ItemRequestDto::getId).containsExactly(3L);
+        verify(itemRequestRepository, never()).findFeedPageAfter(anyLong(), any(), anyLong(), any());
     }
 
+    @Test
+    public void getAllAfterCursorFallsBackToDatabase() {
+        User user = User.builder()
+                .id(1L)
+                .build();
+        ItemRequestFeedDto request = new ItemRequestFeedDto(3L, 2L, "description", LocalDateTime.now());
+        ItemRequestCursor after = new ItemRequestCursor(LocalDateTime.now().plusMinutes(1), 4L);
+        when(userService.getAuthenticatedUser()).thenReturn(user);
+        when(recentRequestFeed.page(1L, after, 0, 10)).thenReturn(Optional.empty());
+        when(itemRequestRepository.findFeedPageAfter(1L, after.getCreated(), 4L, PageRequest.of(0, 10)))
+                .thenReturn(List.of(request));
+
+        List<ItemRequestDto> result = itemRequestService.getAll(after, 10);
+
+        assertThat(result).extracting(ItemRequestDto::getId).containsExactly(3L);
+    }
+
+
+    @Test
+    public void getAllAttachesAnswersInMemory() {
+        User user = User.builder()
+                .id(1L)
+                .build();
+        ItemRequestFeedDto first = new ItemRequestFeedDto(1L, 2L, "first", LocalDateTime.now());
+        ItemRequestFeedDto second = new ItemRequestFeedDto(2L, 2L, "second", LocalDateTime.now());
+        when(userService.getAuthenticatedUser()).thenReturn(user);
+        when(itemRequestRepository.findFeedPage(anyLong(), any()))
+                .thenReturn(List.of(first, second));
+        when(itemRepository.findAnswersByRequestIdIn(List.of(1L, 2L))).thenReturn(List.of(
+                new ItemResponseDto(10L, "drill", "drill", null, null, true, 2L),
+                new ItemResponseDto(11L, "saw", "saw", null, null, true, 2L)));
+        when(itemRepository.findCategoryIdsByItemIdIn(List.of(10L, 11L)))
+                .thenReturn(List.of(new ItemCategoryIdDto(10L, 5L)));
+
+        List<ItemRequestDto> result = itemRequestService.getAll(PageRequest.ofSize(2));
+
+        assertThat(result.get(0).getItems()).isEmpty();
+        assertThat(result.get(1).getItems()).extracting(ItemDto::getId).containsExactly(10L, 11L);
+        assertThat(result.get(1).getItems().get(0).getCatIds()).containsExactly(5L);
+        assertThat(result.get(1).getItems().get(1).getCatIds()).isEmpty();
+    }
 
     @Test
     public void getAllSelfRequests() {
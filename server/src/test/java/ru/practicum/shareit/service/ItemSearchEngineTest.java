@@ -0,0 +1,52 @@
+package ru.practicum.shareit.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.search.PostgresItemSearchEngine;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ItemSearchEngineTest {
+
+    @Mock
+    private ItemRepository itemRepository;
+
+    @InjectMocks
+    private PostgresItemSearchEngine searchEngine;
+
+    @Test
+    void prefixQueryForSingleWord() {
+        assertThat(PostgresItemSearchEngine.toPrefixQuery("дрел")).isEqualTo("дрел:*");
+    }
+
+    @Test
+    void prefixQueryJoinsWordsAndDropsOperators() {
+        assertThat(PostgresItemSearchEngine.toPrefixQuery("  аккумуляторная & | !дрель'  "))
+                .isEqualTo("аккумуляторная & дрель:*");
+    }
+
+    @Test
+    void searchWithoutWordsSkipsQuery() {
+        assertThat(searchEngine.search("&&& !!", null)).isEmpty();
+        verifyNoInteractions(itemRepository);
+    }
+
+    @Test
+    void searchPassesPrefixQuery() {
+        when(itemRepository.searchFullText(any(), any())).thenReturn(List.of());
+
+        searchEngine.search("дрель бош", null);
+
+        verify(itemRepository, times(1)).searchFullText(eq("дрель & бош:*"), any());
+    }
+}
@@ -1,29 +1,39 @@
 package ru.practicum.shareit.service;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.PageRequest;
 import ru.practicum.shareit.authentication.config.JWTFilter;
 import ru.practicum.shareit.authentication.controller.AuthController;
 import ru.practicum.shareit.authentication.service.AuthenticationService;
 import ru.practicum.shareit.booking.repository.BookingRepository;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.service.ItemBookingPointers;
 import ru.practicum.shareit.category.model.Category;
-import ru.practicum.shareit.category.repository.CategoryRepository;
+import ru.practicum.shareit.category.service.CategoryRegistry;
 import ru.practicum.shareit.exception.IdNotFoundException;
 import ru.practicum.shareit.exception.ValidateException;
 import ru.practicum.shareit.item.dto.CommentDto;
 import ru.practicum.shareit.item.dto.CommentUpdateDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.dto.ItemFullDto;
+import ru.practicum.shareit.item.dto.ItemResponseDto;
 import ru.practicum.shareit.item.model.Comment;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.repository.CommentRepository;
 import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.search.ItemSearchEngine;
+import ru.practicum.shareit.item.search.ItemSuggestionIndex;
+import ru.practicum.shareit.item.service.CatalogSnapshot;
+import ru.practicum.shareit.item.service.CommentEligibility;
 import ru.practicum.shareit.item.service.ItemServiceImpl;
 import ru.practicum.shareit.request.repository.ItemRequestRepository;
 import ru.practicum.shareit.request.model.ItemRequest;
@@ -31,17 +41,22 @@ import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.service.UserService;
 import ru.practicum.shareit.utils.JWTUtil;
 
+import java.io.ByteArrayOutputStream;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -63,11 +78,29 @@ public class ItemServiceTest {
     private ItemRequestRepository itemRequestRepository;
 
     @Mock
-    private CategoryRepository categoryRepository;
+    private CategoryRegistry categoryRegistry;
 
     @Mock
     private UserService userService;
 
+    @Mock
+    private ItemSearchEngine itemSearchEngine;
+
+    @Mock
+    private ItemSuggestionIndex suggestionIndex;
+
+    @Mock
+    private CatalogSnapshot catalogSnapshot;
+
+    @Mock
+    private CommentEligibility commentEligibility;
+
+    @Mock
+    private ItemBookingPointers itemBookingPointers;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
 
     @Test
     void addWithRequestId() {
@@ -123,8 +156,8 @@ public class ItemServiceTest {
                 .thenReturn(Optional.of(itemRequest));
         when(itemRepository.save(any()))
                 .thenReturn(item);
-        when(categoryRepository.findById(anyLong()))
-                .thenReturn(Optional.of(category));
+        when(categoryRegistry.resolve(any()))
+                .thenReturn(sets);
 
         ItemDto result = itemService.createItem(itemDto);
         assertThat(result).isNotNull();
@@ -136,6 +169,7 @@ public class ItemServiceTest {
 
         verify(itemRequestRepository, times(1)).findById(any());
         verify(itemRepository, times(1)).save(any());
+        verify(catalogSnapshot, times(1)).put(any(), eq("(Для дома)"));
     }
 
     @Test
@@ -180,8 +214,8 @@ public class ItemServiceTest {
         when(userService.getAuthenticatedUser()).thenReturn(user);
         when(itemRepository.save(any()))
                 .thenReturn(item);
-        when(categoryRepository.findById(anyLong()))
-                .thenReturn(Optional.of(category));
+        when(categoryRegistry.resolve(any()))
+                .thenReturn(sets);
 
         ItemDto result = itemService.createItem(itemDto);
         assertThat(result).isNotNull();
@@ -289,11 +323,11 @@ public class ItemServiceTest {
 
     @Test
     void getByIdNotFoundException() {
-        when(itemRepository.findById(anyLong()))
+        when(itemRepository.findWithBookingPointersById(anyLong()))
                 .thenReturn(Optional.empty());
 
         assertThrows(IdNotFoundException.class, () -> itemService.getByIdItem(1L));
-        verify(itemRepository, times(1)).findById(anyLong());
+        verify(itemRepository, times(1)).findWithBookingPointersById(anyLong());
 
     }
 
@@ -317,6 +351,7 @@ public class ItemServiceTest {
                 .name("test")
                 .description("test")
                 .owner(user)
+                .bookingCount(1L)
                 .available(Boolean.TRUE)
                 .build();
 
@@ -326,7 +361,7 @@ public class ItemServiceTest {
                 .end(LocalDateTime.now().plusDays(2))
                 .item(item)
                 .booker(user)
-                .status(BookingStatus.APPROVED.name())
+                .status(BookingStatus.APPROVED)
                 .build();
 
         Comment comment = Comment.builder()
@@ -336,11 +371,11 @@ public class ItemServiceTest {
                 .user(user)
                 .build();
 
-        when(itemRepository.findById(anyLong()))
+        when(itemRepository.findWithBookingPointersById(anyLong()))
                 .thenReturn(Optional.of(item));
-        when(bookingRepository.findBookingsByItemId(anyLong()))
-                .thenReturn(List.of(booking));
-        when(commentRepository.findAllByItemId(anyLong()))
+        when(itemBookingPointers.resolve(eq(item), any()))
+                .thenReturn(new Booking[]{null, booking});
+        when(commentRepository.findItemPageBefore(anyLong(), anyLong(), any()))
                 .thenReturn(List.of(comment));
 
         ItemFullDto result = itemService.getByIdItem(1L);
@@ -357,9 +392,9 @@ public class ItemServiceTest {
         assertThat(result.getComments().get(0).getText()).isEqualTo(comment.getText());
         assertThat(result.getComments().get(0).getAuthorName()).isEqualTo(comment.getUser().getName());
 
-        verify(itemRepository, times(1)).findById(anyLong());
-        verify(bookingRepository, times(1)).findBookingsByItemId(anyLong());
-        verify(commentRepository, times(1)).findAllByItemId(anyLong());
+        verify(itemRepository, times(1)).findWithBookingPointersById(anyLong());
+        verify(itemBookingPointers, times(1)).resolve(eq(item), any());
+        verify(commentRepository, times(1)).findItemPageBefore(1L, Long.MAX_VALUE, PageRequest.of(0, 10));
 
     }
 
@@ -383,6 +418,7 @@ public class ItemServiceTest {
                 .name("test")
                 .description("test")
                 .owner(user)
+                .bookingCount(2L)
                 .available(Boolean.TRUE)
                 .build();
 
@@ -392,7 +428,7 @@ public class ItemServiceTest {
                 .end(LocalDateTime.now().plusDays(2))
                 .item(item)
                 .booker(user)
-                .status(BookingStatus.APPROVED.name())
+                .status(BookingStatus.APPROVED)
                 .build();
 
         booking1.setStart(LocalDateTime.now().minusDays(2));
@@ -403,7 +439,7 @@ public class ItemServiceTest {
                 .end(LocalDateTime.now().plusDays(2))
                 .item(item)
                 .booker(user)
-                .status(BookingStatus.APPROVED.name())
+                .status(BookingStatus.APPROVED)
                 .build();
 
         Comment comment = Comment.builder()
@@ -413,11 +449,11 @@ public class ItemServiceTest {
                 .user(user)
                 .build();
 
-        when(itemRepository.findById(anyLong()))
+        when(itemRepository.findWithBookingPointersById(anyLong()))
                 .thenReturn(Optional.of(item));
-        when(bookingRepository.findBookingsByItemId(anyLong()))
-                .thenReturn(List.of(booking1, booking2));
-        when(commentRepository.findAllByItemId(anyLong()))
+        when(itemBookingPointers.resolve(eq(item), any()))
+                .thenReturn(new Booking[]{booking1, booking2});
+        when(commentRepository.findItemPageBefore(anyLong(), anyLong(), any()))
                 .thenReturn(List.of(comment));
         when(userService.getAuthenticatedUser()).thenReturn(user);
 
@@ -433,9 +469,9 @@ public class ItemServiceTest {
         assertThat(result.getComments().get(0).getText()).isEqualTo(comment.getText());
         assertThat(result.getComments().get(0).getAuthorName()).isEqualTo(comment.getUser().getName());
 
-        verify(itemRepository, times(1)).findById(anyLong());
-        verify(bookingRepository, times(1)).findBookingsByItemId(anyLong());
-        verify(commentRepository, times(1)).findAllByItemId(anyLong());
+        verify(itemRepository, times(1)).findWithBookingPointersById(anyLong());
+        verify(itemBookingPointers, times(1)).resolve(eq(item), any());
+        verify(commentRepository, times(1)).findItemPageBefore(1L, Long.MAX_VALUE, PageRequest.of(0, 10));
 
     }
 
@@ -459,6 +495,7 @@ public class ItemServiceTest {
                 .name("test")
                 .description("test")
                 .owner(user)
+                .bookingCount(1L)
                 .available(Boolean.TRUE)
                 .build();
 
@@ -468,7 +505,7 @@ public class ItemServiceTest {
                 .end(LocalDateTime.now().plusDays(2))
                 .item(item)
                 .booker(user)
-                .status(BookingStatus.APPROVED.name())
+                .status(BookingStatus.APPROVED)
                 .build();
 
         Comment comment = Comment.builder()
@@ -480,11 +517,11 @@ public class ItemServiceTest {
 
         when(itemRepository.findItemsByOwnerId(anyLong(), any()))
                 .thenReturn(List.of(item));
-        when(itemRepository.findById(anyLong()))
-                .thenReturn(Optional.of(item));
-        when(bookingRepository.findBookingsByItemId(anyLong()))
-                .thenReturn(List.of(booking));
-        when(commentRepository.findAllByItemId(anyLong()))
+        when(itemBookingPointers.resolve(eq(item), any()))
+                .thenReturn(new Booking[]{null, booking});
+        when(commentRepository.findLatestIdsByItemIdIn(anyCollection(), eq(10)))
+                .thenReturn(List.of(comment.getId()));
+        when(commentRepository.findAllWithUserByIdIn(List.of(comment.getId())))
                 .thenReturn(List.of(comment));
         when(userService.getAuthenticatedUser()).thenReturn(user);
 
@@ -505,11 +542,197 @@ public class ItemServiceTest {
         assertThat(resultItemDTO.getComments().get(0).getAuthorName()).isEqualTo(
                 comment.getUser().getName());
 
-        verify(itemRepository, times(1)).findById(anyLong());
+        verify(itemRepository, never()).findById(anyLong());
         verify(itemRepository, times(1)).findItemsByOwnerId(anyLong(), any());
-        verify(bookingRepository, times(1)).findBookingsByItemId(anyLong());
-        verify(commentRepository, times(1)).findAllByItemId(anyLong());
+        verify(itemBookingPointers, times(1)).resolve(eq(item), any());
+        verify(commentRepository, times(1)).findLatestIdsByItemIdIn(anyCollection(), eq(10));
+
+    }
+
+    @Test
+    void getUserItemsGroupsBookingsByItem() {
+        User owner = User.builder()
+                .id(1L)
+                .name("owner")
+                .email("owner@test.ru")
+                .build();
+
+        User booker = User.builder()
+                .id(2L)
+                .name("booker")
+                .email("booker@test.ru")
+                .build();
 
+        Item first = Item.builder()
+                .id(1L)
+                .name("first")
+                .description("first")
+                .owner(owner)
+                .bookingCount(3L)
+                .available(Boolean.TRUE)
+                .build();
+
+        Item second = Item.builder()
+                .id(2L)
+                .name("second")
+                .description("second")
+                .owner(owner)
+                .available(Boolean.TRUE)
+                .build();
+
+        Booking past = Booking.builder()
+                .id(1L)
+                .start(LocalDateTime.now().minusDays(3))
+                .end(LocalDateTime.now().minusDays(2))
+                .item(first)
+                .booker(booker)
+                .status(BookingStatus.APPROVED)
+                .build();
+
+        Booking future = Booking.builder()
+                .id(2L)
+                .start(LocalDateTime.now().plusDays(1))
+                .end(LocalDateTime.now().plusDays(2))
+                .item(first)
+                .booker(booker)
+                .status(BookingStatus.APPROVED)
+                .build();
+
+        Booking waiting = Booking.builder()
+                .id(3L)
+                .start(LocalDateTime.now().plusDays(3))
+                .end(LocalDateTime.now().plusDays(4))
+                .item(first)
+                .booker(booker)
+                .status(BookingStatus.WAITING)
+                .build();
+
+        when(userService.getAuthenticatedUser()).thenReturn(owner);
+        when(itemRepository.findItemsByOwnerId(anyLong(), any()))
+                .thenReturn(List.of(second, first));
+        when(itemBookingPointers.resolve(eq(first), any()))
+                .thenReturn(new Booking[]{past, future});
+        when(itemBookingPointers.resolve(eq(second), any()))
+                .thenReturn(new Booking[]{null, null});
+        when(commentRepository.findLatestIdsByItemIdIn(anyCollection(), eq(10)))
+                .thenReturn(List.of());
+
+        List<ItemFullDto> result = itemService.findAllItemsByOwnerId(null);
+
+        assertThat(result).hasSize(2);
+        assertThat(result.get(0).getId()).isEqualTo(first.getId());
+        assertThat(result.get(0).getLastBooking().getId()).isEqualTo(past.getId());
+        assertThat(result.get(0).getNextBooking().getId()).isEqualTo(future.getId());
+        assertThat(result.get(0).getComments()).isEmpty();
+        assertThat(result.get(1).getId()).isEqualTo(second.getId());
+        assertThat(result.get(1).getLastBooking()).isNull();
+        assertThat(result.get(1).getNextBooking()).isNull();
+
+        verify(bookingRepository, never()).existsByItemIdAndBookerId(anyLong(), anyLong());
+        verify(commentRepository, never()).findItemPageBefore(anyLong(), anyLong(), any());
+        verify(commentRepository, never()).findAllWithUserByIdIn(any());
+    }
+
+    @Test
+    void getByIdHidesBookingsFromBooker() {
+        User owner = User.builder()
+                .id(1L)
+                .build();
+        User booker = User.builder()
+                .id(2L)
+                .build();
+        Item item = Item.builder()
+                .id(1L)
+                .owner(owner)
+                .bookingCount(2L)
+                .build();
+        Booking booking = Booking.builder()
+                .id(1L)
+                .booker(booker)
+                .build();
+        when(itemRepository.findWithBookingPointersById(1L)).thenReturn(Optional.of(item));
+        when(userService.getAuthenticatedUser()).thenReturn(booker);
+        when(itemBookingPointers.resolve(eq(item), any())).thenReturn(new Booking[]{booking, null});
+        when(bookingRepository.existsByItemIdAndBookerId(1L, 2L)).thenReturn(true);
+
+        ItemFullDto result = itemService.getByIdItem(1L);
+
+        assertThat(result.getLastBooking()).isNull();
+        assertThat(result.getNextBooking()).isNull();
+    }
+
+    @Test
+    void getAllReadsCatalogSnapshot() {
+        ItemResponseDto itemDto = ItemResponseDto.builder()
+                .id(1L)
+                .name("дрель")
+                .build();
+        when(catalogSnapshot.get()).thenReturn(Map.of("(Для дома)", List.of(itemDto)));
+
+        Map<String, List<ItemResponseDto>> result = itemService.getAll();
+
+        assertThat(result).containsOnlyKeys("(Для дома)");
+        verifyNoInteractions(itemRepository, categoryRegistry);
+    }
+
+    @Test
+    void getItemForCatIdPageUsesCursor() {
+        ItemResponseDto itemDto = ItemResponseDto.builder()
+                .id(6L)
+                .name("дрель")
+                .build();
+        when(categoryRegistry.exists(1L)).thenReturn(true);
+        when(itemRepository.getItemForCatIdAfter(eq(1L), eq(5L), any()))
+                .thenReturn(List.of(itemDto));
+
+        List<ItemResponseDto> result = itemService.getItemForCatId(1L, 5L, 10);
+
+        assertThat(result).extracting(ItemResponseDto::getId).containsExactly(6L);
+        verify(itemRepository, times(1)).getItemForCatIdAfter(eq(1L), eq(5L), eq(PageRequest.of(0, 10)));
+    }
+
+    @Test
+    void getItemForCatIdUnknownCategory() {
+        when(categoryRegistry.exists(anyLong())).thenReturn(false);
+
+        assertThrows(IdNotFoundException.class, () -> itemService.getItemForCatId(1L, null, 10));
+        assertThrows(IdNotFoundException.class,
+                () -> itemService.writeItemsForCatId(1L, new ByteArrayOutputStream()));
+        verifyNoInteractions(itemRepository);
+    }
+
+    @Test
+    void writeItemsForCatIdStreamsJsonArray() throws Exception {
+        when(categoryRegistry.exists(1L)).thenReturn(true);
+        when(itemRepository.streamItemForCatId(1L)).thenReturn(Stream.of(
+                ItemResponseDto.builder().id(1L).name("дрель").build(),
+                ItemResponseDto.builder().id(2L).name("пила").build()));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        itemService.writeItemsForCatId(1L, out);
+
+        JsonNode json = objectMapper.readTree(out.toByteArray());
+        assertThat(json.isArray()).isTrue();
+        assertThat(json).hasSize(2);
+        assertThat(json.get(1).get("name").asText()).isEqualTo("пила");
+    }
+
+    @Test
+    void writeCatalogUsesSameGroupsAsGetAll() throws Exception {
+        ItemResponseDto drill = new ItemResponseDto(1L, "дрель", "d", "url", BigDecimal.TEN, true, null);
+        ItemResponseDto saw = new ItemResponseDto(2L, "пила", "d", "url", BigDecimal.TEN, true, null);
+        Map<String, List<ItemResponseDto>> catalog = Map.of(
+                "(Для дома)", List.of(drill),
+                "(Для дома, Для сада)", List.of(saw));
+        when(catalogSnapshot.get()).thenReturn(catalog);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        itemService.writeCatalog(out);
+
+        JsonNode json = objectMapper.readTree(out.toByteArray());
+        assertThat(json).isEqualTo(objectMapper.readTree(objectMapper.writeValueAsBytes(itemService.getAll())));
+        assertThat(json.get("(Для дома, Для сада)")).hasSize(1);
+        verifyNoInteractions(itemRepository);
     }
 
     @Test
@@ -547,7 +770,7 @@ public class ItemServiceTest {
                 .available(Boolean.TRUE)
                 .build();
 
-        when(itemRepository.search(any(), any()))
+        when(itemSearchEngine.search(any(), any()))
                 .thenReturn(List.of(item));
 
         List<ItemDto> result = itemService.searchItem("test", null);
@@ -557,7 +780,14 @@ public class ItemServiceTest {
         assertThat(result.get(0).getDescription()).isEqualTo(item.getDescription());
         assertThat(result.get(0).getAvailable()).isEqualTo(item.getAvailable());
 
-        verify(itemRepository, times(1)).search(any(), any());
+        verify(itemSearchEngine, times(1)).search(any(), any());
+    }
+
+    @Test
+    void searchBlankText() {
+        List<ItemDto> result = itemService.searchItem("   ", null);
+        assertThat(result).isEmpty();
+        verifyNoInteractions(itemSearchEngine);
     }
 
     @Test
@@ -576,7 +806,7 @@ public class ItemServiceTest {
                 .available(Boolean.TRUE)
                 .build();
 
-        when(bookingRepository.existsBookingByBookerIdAndStatus(anyLong(), any()))
+        when(commentEligibility.isEligible(anyLong(), anyLong(), any()))
                 .thenReturn(Boolean.FALSE);
         when(itemRepository.findById(anyLong()))
                 .thenReturn(Optional.of(item));
@@ -611,7 +841,7 @@ public class ItemServiceTest {
                 .user(user)
                 .build();
 
-        when(bookingRepository.existsBookingByBookerIdAndStatus(anyLong(), any()))
+        when(commentEligibility.isEligible(anyLong(), anyLong(), any()))
                 .thenReturn(Boolean.TRUE);
         when(itemRepository.findById(anyLong()))
                 .thenReturn(Optional.of(item));
@@ -630,7 +860,35 @@ public class ItemServiceTest {
 
         verify(itemRepository, times(1)).findById(anyLong());
         verify(commentRepository, times(1)).save(any());
-        verify(bookingRepository, times(1)).existsBookingByBookerIdAndStatus(anyLong(), any());
+        verify(itemRepository, times(1)).incrementCommentCount(1L);
+        verify(commentEligibility, times(1)).isEligible(eq(1L), eq(1L), any());
+    }
+
+    @Test
+    void getCommentsPagesBeforeCursor() {
+        User user = User.builder()
+                .id(1L)
+                .name("name")
+                .build();
+        Comment comment = Comment.builder()
+                .id(4L)
+                .text("test")
+                .user(user)
+                .build();
+        when(itemRepository.existsById(1L)).thenReturn(true);
+        when(commentRepository.findItemPageBefore(1L, 5L, PageRequest.of(0, 2)))
+                .thenReturn(List.of(comment));
+
+        List<CommentDto> result = itemService.getComments(1L, 5L, 2);
+
+        assertThat(result).extracting(CommentDto::getId).containsExactly(4L);
+    }
+
+    @Test
+    void getCommentsOfUnknownItem() {
+        when(itemRepository.existsById(1L)).thenReturn(false);
+
+        assertThrows(IdNotFoundException.class, () -> itemService.getComments(1L, null, 10));
     }
 
 }
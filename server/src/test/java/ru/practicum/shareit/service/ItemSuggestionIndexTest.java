@@ -0,0 +1,87 @@
+package ru.practicum.shareit.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.practicum.shareit.category.model.Category;
+import ru.practicum.shareit.category.repository.CategoryRepository;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.search.ItemSuggestionIndex;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class ItemSuggestionIndexTest {
+
+    @Mock
+    private ItemRepository itemRepository;
+
+    @Mock
+    private CategoryRepository categoryRepository;
+
+    @InjectMocks
+    private ItemSuggestionIndex index;
+
+    @BeforeEach
+    void setUp() {
+        when(itemRepository.findAllNames()).thenReturn(List.of("Дрель", "Дрель ударная", "Диван", "Дрель"));
+        when(categoryRepository.findAll()).thenReturn(List.of(new Category(1L, "Для дома")));
+        index.rebuild();
+    }
+
+    @Test
+    void suggestIsCaseInsensitiveAndSorted() {
+        assertThat(index.suggest("дР", 10)).containsExactly("Дрель", "Дрель ударная");
+        assertThat(index.suggest("д", 10)).containsExactly("Диван", "Для дома", "Дрель", "Дрель ударная");
+    }
+
+    @Test
+    void suggestRespectsLimit() {
+        assertThat(index.suggest("д", 2)).containsExactly("Диван", "Для дома");
+        assertThat(index.suggest("", 10)).isEmpty();
+        assertThat(index.suggest("ж", 10)).isEmpty();
+    }
+
+    @Test
+    void removeKeepsPhraseWhileOtherItemsUseIt() {
+        index.remove("Дрель");
+        assertThat(index.suggest("дрель", 10)).containsExactly("Дрель", "Дрель ударная");
+
+        index.remove("Дрель");
+        assertThat(index.suggest("дрель", 10)).containsExactly("Дрель ударная");
+    }
+
+    @Test
+    void replaceMovesPhrase() {
+        index.replace("Диван", "Кресло");
+        index.add("Стол");
+
+        assertThat(index.suggest("ди", 10)).isEmpty();
+        assertThat(index.suggest("кр", 10)).containsExactly("Кресло");
+        assertThat(index.suggest("ст", 10)).containsExactly("Стол");
+    }
+
+    @Test
+    void addDuringRebuildIsKept() throws Exception {
+        Thread[] adder = new Thread[1];
+        when(itemRepository.findAllNames()).thenAnswer(invocation -> {
+            adder[0] = new Thread(() -> index.add("Дрель аккумуляторная"));
+            adder[0].start();
+            while (adder[0].getState() != Thread.State.WAITING && adder[0].isAlive()) {
+                Thread.onSpinWait();
+            }
+            return List.of("Дрель");
+        });
+
+        index.rebuild();
+        adder[0].join(5000);
+
+        assertThat(index.suggest("дрель", 10)).containsExactly("Дрель", "Дрель аккумуляторная");
+    }
+}
@@ -0,0 +1,105 @@
+package ru.practicum.shareit.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.practicum.shareit.booking.dto.BookingStateDto;
+import ru.practicum.shareit.booking.dto.OwnerBookingCountDto;
+import ru.practicum.shareit.booking.dto.RequestBookingStatus;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.booking.service.OwnerBookingCounters;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class OwnerBookingCountersTest {
+
+    private final LocalDateTime now = LocalDateTime.now();
+
+    @Mock
+    private BookingRepository bookingRepository;
+
+    @InjectMocks
+    private OwnerBookingCounters counters;
+
+    @Test
+    void loadsCountersOnceAndAppliesChanges() {
+        when(bookingRepository.countByOwnerIds(eq(List.of(1L)), any())).thenReturn(List.of(
+                new OwnerBookingCountDto(1L, BookingStatus.WAITING, 2L, 0L),
+                new OwnerBookingCountDto(1L, BookingStatus.APPROVED, 3L, 2L)));
+        when(bookingRepository.findUnfinishedByOwnerIds(eq(List.of(1L)), any())).thenReturn(List.of(
+                state(now.minusDays(1), now.plusDays(1)),
+                state(now.plusDays(1), now.plusDays(2)),
+                state(now.plusDays(3), now.plusDays(4))));
+
+        assertThat(counters.get(1L)).containsExactlyInAnyOrderEntriesOf(Map.of(
+                RequestBookingStatus.ALL, 5L,
+                RequestBookingStatus.CURRENT, 1L,
+                RequestBookingStatus.PAST, 2L,
+                RequestBookingStatus.FUTURE, 2L,
+                RequestBookingStatus.WAITING, 2L,
+                RequestBookingStatus.REJECTED, 0L));
+
+        counters.onCreated(1L, now.plusDays(5), now.plusDays(6));
+        counters.onStatusChanged(1L, BookingStatus.WAITING, BookingStatus.REJECTED);
+
+        Map<RequestBookingStatus, Long> summary = counters.get(1L);
+        assertThat(summary.get(RequestBookingStatus.ALL)).isEqualTo(6L);
+        assertThat(summary.get(RequestBookingStatus.FUTURE)).isEqualTo(3L);
+        assertThat(summary.get(RequestBookingStatus.WAITING)).isEqualTo(2L);
+        assertThat(summary.get(RequestBookingStatus.REJECTED)).isEqualTo(1L);
+        verify(bookingRepository, times(1)).countByOwnerIds(any(), any());
+    }
+
+    @Test
+    void movesBookingsBetweenTimeStatesAsTimePasses() {
+        when(bookingRepository.countByOwnerIds(eq(List.of(1L)), any()))
+                .thenReturn(List.of(new OwnerBookingCountDto(1L, BookingStatus.APPROVED, 1L, 0L)));
+        when(bookingRepository.findUnfinishedByOwnerIds(eq(List.of(1L)), any()))
+                .thenReturn(List.of(state(now.minusSeconds(2), now.minusNanos(1))));
+
+        Map<RequestBookingStatus, Long> summary = counters.get(1L);
+
+        assertThat(summary.get(RequestBookingStatus.PAST)).isEqualTo(1L);
+        assertThat(summary.get(RequestBookingStatus.CURRENT)).isZero();
+    }
+
+    @Test
+    void ignoresChangesForOwnersNotLoaded() {
+        counters.onCreated(1L, now.plusDays(1), now.plusDays(2));
+        counters.onStatusChanged(1L, BookingStatus.WAITING, BookingStatus.APPROVED);
+
+        counters.reconcile();
+
+        verify(bookingRepository, times(0)).countByOwnerIds(any(), any());
+    }
+
+    @Test
+    void reconcileReloadsReadOwnersAndEvictsIdleOnes() {
+        when(bookingRepository.countByOwnerIds(eq(List.of(1L)), any())).thenReturn(List.of());
+        when(bookingRepository.findUnfinishedByOwnerIds(eq(List.of(1L)), any())).thenReturn(List.of());
+        counters.get(1L);
+
+        counters.reconcile();
+        counters.reconcile();
+        counters.get(1L);
+
+        verify(bookingRepository, times(3)).countByOwnerIds(any(), any());
+    }
+
+    private BookingStateDto state(LocalDateTime start, LocalDateTime end) {
+        return new BookingStateDto(1L, 1L, 1L, BookingStatus.APPROVED, 0L, start, end);
+    }
+}
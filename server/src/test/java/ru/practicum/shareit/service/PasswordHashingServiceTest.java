@@ -0,0 +1,75 @@
+package ru.practicum.shareit.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import ru.practicum.shareit.authentication.service.PasswordHashingService;
+import ru.practicum.shareit.exception.TooManyRequestsException;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class PasswordHashingServiceTest {
+
+    private final BCryptPasswordEncoder passwordEncoder = new BCryptPasswordEncoder(4);
+
+    private final PasswordHashingService hashingService = new PasswordHashingService(passwordEncoder, 1, 1);
+
+    @AfterEach
+    void tearDown() {
+        hashingService.shutdown();
+    }
+
+    @Test
+    void encodeProducesMatchingHash() {
+        String hash = hashingService.encode("password");
+
+        assertThat(passwordEncoder.matches("password", hash)).isTrue();
+    }
+
+    @Test
+    void taskExceptionIsRethrown() {
+        assertThrows(BadCredentialsException.class, () -> hashingService.execute(() -> {
+            throw new BadCredentialsException("bad");
+        }));
+    }
+
+    @Test
+    void rejectsWhenPoolAndQueueAreFull() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<Boolean> running = CompletableFuture.supplyAsync(() -> hashingService.execute(() -> {
+            started.countDown();
+            return await(release);
+        }));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+        // один из двух запросов занимает единственное место в очереди, второй должен быть отклонен сразу
+        CompletableFuture<Boolean> first = CompletableFuture.supplyAsync(() -> hashingService.execute(() -> true));
+        CompletableFuture<Boolean> second = CompletableFuture.supplyAsync(() -> hashingService.execute(() -> true));
+        ExecutionException rejected = assertThrows(ExecutionException.class,
+                () -> CompletableFuture.anyOf(first, second).get(5, TimeUnit.SECONDS));
+        assertThat(rejected.getCause()).isInstanceOf(TooManyRequestsException.class);
+
+        release.countDown();
+        assertThat(running.get(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(first.isCompletedExceptionally() ? second.get(5, TimeUnit.SECONDS)
+                : first.get(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    private static boolean await(CountDownLatch latch) {
+        try {
+            return latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package ru.practicum.shareit.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.practicum.shareit.request.dto.ItemRequestCursor;
+import ru.practicum.shareit.request.dto.ItemRequestFeedDto;
+import ru.practicum.shareit.request.repository.ItemRequestRepository;
+import ru.practicum.shareit.request.service.RecentRequestFeed;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class RecentRequestFeedTest {
+
+    private final LocalDateTime now = LocalDateTime.of(2030, 1, 1, 12, 0);
+
+    @Mock
+    private ItemRequestRepository itemRequestRepository;
+
+    private RecentRequestFeed feed;
+
+    @BeforeEach
+    void setUp() {
+        feed = new RecentRequestFeed(itemRequestRepository, 4);
+    }
+
+    @Test
+    void servesNothingBeforeLoad() {
+        assertThat(feed.page(1L, null, 0, 10)).isEmpty();
+    }
+
+    @Test
+    void skipsOwnRequestsAndPagesByCursor() {
+        when(itemRequestRepository.findRecent(any())).thenReturn(List.of(
+                request(3L, 2L, 3), request(2L, 1L, 2), request(1L, 2L, 1)));
+        feed.reload();
+
+        assertThat(ids(feed.page(1L, null, 0, 1))).containsExactly(3L);
+        assertThat(ids(feed.page(1L, new ItemRequestCursor(now.plusMinutes(3), 3L), 0, 10)))
+                .containsExactly(1L);
+        assertThat(ids(feed.page(1L, null, 1, 10))).containsExactly(1L);
+        assertThat(ids(feed.page(2L, null, 0, 10))).containsExactly(2L);
+    }
+
+    @Test
+    void keepsOrderForLateCommits() {
+        when(itemRequestRepository.findRecent(any())).thenReturn(List.of());
+        feed.reload();
+
+        feed.append(request(2L, 2L, 2));
+        feed.append(request(1L, 2L, 1));
+        feed.append(request(3L, 2L, 2));
+
+        assertThat(ids(feed.page(1L, null, 0, 10))).containsExactly(3L, 2L, 1L);
+    }
+
+    @Test
+    void fallsBackWhenPageReachesEvictedRequests() {
+        when(itemRequestRepository.findRecent(any())).thenReturn(List.of());
+        feed.reload();
+        for (long id = 1; id <= 5; id++) {
+            feed.append(request(id, 2L, (int) id));
+        }
+
+        assertThat(feed.size()).isEqualTo(4);
+        assertThat(ids(feed.page(1L, null, 0, 4))).containsExactly(5L, 4L, 3L, 2L);
+        assertThat(feed.page(1L, null, 0, 5)).isEmpty();
+        assertThat(feed.page(1L, new ItemRequestCursor(now.plusMinutes(2), 2L), 0, 1)).isEmpty();
+    }
+
+    @Test
+    void reloadKeepsRequestsAppendedWhileReading() {
+        when(itemRequestRepository.findRecent(any())).thenReturn(List.of(request(1L, 2L, 1)));
+        feed.reload();
+        feed.append(request(2L, 2L, 2));
+
+        feed.reload();
+
+        assertThat(ids(feed.page(1L, null, 0, 10))).containsExactly(2L, 1L);
+    }
+
+    private ItemRequestFeedDto request(Long id, Long requesterId, int minute) {
+        return new ItemRequestFeedDto(id, requesterId, "request" + id, now.plusMinutes(minute));
+    }
+
+    private static List<Long> ids(Optional<List<ItemRequestFeedDto>> page) {
+        assertThat(page).isPresent();
+        return page.get().stream().map(ItemRequestFeedDto::getId).collect(Collectors.toList());
+    }
+}
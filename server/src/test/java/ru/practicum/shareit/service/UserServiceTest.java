@@ -16,6 +16,8 @@ import ru.practicum.shareit.exception.NotOwnerException;
 import ru.practicum.shareit.user.mapper.UserMapper;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.UserRepository;
+import ru.practicum.shareit.user.service.DeletedUserRegistry;
+import ru.practicum.shareit.user.service.RegisteredEmailFilter;
 import ru.practicum.shareit.user.service.UserServiceImpl;
 import ru.practicum.shareit.user.userDto.UserDto;
 
@@ -31,6 +33,12 @@ class UserServiceTest {
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private RegisteredEmailFilter registeredEmailFilter;
+
+    @Mock
+    private DeletedUserRegistry deletedUserRegistry;
+
     @Mock
     private SecurityContext securityContext;
 
@@ -68,38 +76,58 @@ class UserServiceTest {
         when(securityContext.getAuthentication()).thenReturn(authentication);
         when(authentication.getPrincipal()).thenReturn(personDetails);
         SecurityContextHolder.setContext(securityContext);
-        when(userRepository.findByEmail(user.getEmail())).thenReturn(Optional.of(user));
+        when(userRepository.getReferenceById(user.getId())).thenReturn(user);
 
         User result = userService.getAuthenticatedUser();
 
         assertEquals(user, result);
-        verify(userRepository).findByEmail(user.getEmail());
+        verify(userRepository).getReferenceById(user.getId());
     }
 
     @Test
-    void getAuthenticatedUser_ShouldThrowNotOwnerException_WhenUserNotFound() {
+    void getAuthenticatedUser_ShouldThrowNotOwnerException_WhenPrincipalHasNoId() {
+        when(securityContext.getAuthentication()).thenReturn(authentication);
+        when(authentication.getPrincipal()).thenReturn(new PersonDetails(user.toBuilder().id(null).build()));
+        SecurityContextHolder.setContext(securityContext);
+
+        assertThrows(NotOwnerException.class, () -> userService.getAuthenticatedUser());
+        verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    void getAuthenticatedUser_ShouldThrowNotOwnerException_WhenUserWasDeletedAfterTokenIssued() {
         when(securityContext.getAuthentication()).thenReturn(authentication);
         when(authentication.getPrincipal()).thenReturn(personDetails);
         SecurityContextHolder.setContext(securityContext);
-        when(userRepository.findByEmail(user.getEmail())).thenReturn(Optional.empty());
+        when(deletedUserRegistry.contains(user.getId())).thenReturn(true);
 
         assertThrows(NotOwnerException.class, () -> userService.getAuthenticatedUser());
+        verifyNoInteractions(userRepository);
     }
 
     @Test
     void loadUserByUsername_ShouldReturnUserDetails_WhenUserExists() {
-        when(userRepository.findByEmail(user.getEmail())).thenReturn(Optional.of(user));
+        when(userRepository.findByNormalizedEmail(user.getEmail())).thenReturn(Optional.of(user));
 
         var result = userService.loadUserByUsername(user.getEmail());
 
         assertNotNull(result);
         assertEquals(personDetails.getUsername(), result.getUsername());
-        verify(userRepository).findByEmail(user.getEmail());
+        verify(userRepository).findByNormalizedEmail(user.getEmail());
+    }
+
+    @Test
+    void loadUserByUsername_ShouldIgnoreEmailCase() {
+        when(userRepository.findByNormalizedEmail("user@example.com")).thenReturn(Optional.of(user));
+
+        var result = userService.loadUserByUsername(" User@Example.COM");
+
+        assertEquals(personDetails.getUsername(), result.getUsername());
     }
 
     @Test
     void loadUserByUsername_ShouldThrowUsernameNotFoundException_WhenUserNotFound() {
-        when(userRepository.findByEmail("unknown@example.com")).thenReturn(Optional.empty());
+        when(userRepository.findByNormalizedEmail("unknown@example.com")).thenReturn(Optional.empty());
 
         assertThrows(UsernameNotFoundException.class,
                 () -> userService.loadUserByUsername("unknown@example.com"));
@@ -129,7 +157,7 @@ class UserServiceTest {
         when(securityContext.getAuthentication()).thenReturn(authentication);
         when(authentication.getPrincipal()).thenReturn(personDetails);
         SecurityContextHolder.setContext(securityContext);
-        when(userRepository.findByEmail(user.getEmail())).thenReturn(Optional.of(user));
+        when(userRepository.getReferenceById(user.getId())).thenReturn(user);
         when(userRepository.save(any(User.class))).thenReturn(user);
 
         UserDto result = userService.updateUser(updateDto);
@@ -150,13 +178,14 @@ class UserServiceTest {
         when(securityContext.getAuthentication()).thenReturn(authentication);
         when(authentication.getPrincipal()).thenReturn(personDetails);
         SecurityContextHolder.setContext(securityContext);
-        when(userRepository.findByEmail(user.getEmail())).thenReturn(Optional.of(user));
+        when(userRepository.getReferenceById(user.getId())).thenReturn(user);
         when(userRepository.save(any(User.class))).thenAnswer(invocation -> invocation.getArgument(0));
 
         UserDto result = userService.updateUser(updateDto);
 
         assertNotNull(result);
         assertEquals("new@example.com", result.getEmail());
+        verify(registeredEmailFilter).add("new@example.com");
         assertEquals(user.getName(), result.getName());
         verify(userRepository).save(any(User.class));
     }
@@ -170,7 +199,7 @@ class UserServiceTest {
         when(securityContext.getAuthentication()).thenReturn(authentication);
         when(authentication.getPrincipal()).thenReturn(personDetails);
         SecurityContextHolder.setContext(securityContext);
-        when(userRepository.findByEmail(user.getEmail())).thenReturn(Optional.of(user));
+        when(userRepository.getReferenceById(user.getId())).thenReturn(user);
         when(userRepository.findById(user.getId())).thenReturn(Optional.of(user));
 
         UserDto result = userService.updateUser(updateDto);
@@ -208,6 +237,7 @@ class UserServiceTest {
         userService.removeUserById(userId);
 
         verify(userRepository).deleteById(userId);
+        verify(deletedUserRegistry).add(userId);
     }
 
     @Test
@@ -215,11 +245,12 @@ class UserServiceTest {
         when(securityContext.getAuthentication()).thenReturn(authentication);
         when(authentication.getPrincipal()).thenReturn(personDetails);
         SecurityContextHolder.setContext(securityContext);
-        when(userRepository.findByEmail(user.getEmail())).thenReturn(Optional.of(user));
+        when(userRepository.getReferenceById(user.getId())).thenReturn(user);
 
         userService.removeYourSelfProfile();
 
         verify(userRepository).deleteById(user.getId());
+        verify(deletedUserRegistry).add(user.getId());
     }
 
     @Test
@@ -231,7 +262,7 @@ class UserServiceTest {
         when(securityContext.getAuthentication()).thenReturn(authentication);
         when(authentication.getPrincipal()).thenReturn(personDetails);
         SecurityContextHolder.setContext(securityContext);
-        when(userRepository.findByEmail(user.getEmail())).thenReturn(Optional.of(user));
+        when(userRepository.getReferenceById(user.getId())).thenReturn(user);
         when(userRepository.save(any(User.class))).thenAnswer(invocation -> invocation.getArgument(0));
 
         UserDto result = userService.updateUser(updateDto);
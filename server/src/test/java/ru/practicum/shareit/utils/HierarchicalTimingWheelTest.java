@@ -0,0 +1,43 @@
+package ru.practicum.shareit.utils;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HierarchicalTimingWheelTest {
+
+    private final HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(1000, 8, 0);
+
+    @Test
+    void firesTasksOnlyAfterDeadline() {
+        wheel.schedule(3_000, "a");
+        wheel.schedule(3_500, "b");
+
+        assertThat(wheel.advance(2_999)).isEmpty();
+        assertThat(wheel.advance(3_000)).containsExactly("a");
+        assertThat(wheel.advance(3_999)).isEmpty();
+        assertThat(wheel.advance(4_000)).containsExactly("b");
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    void cascadesTasksFromUpperLevels() {
+        wheel.schedule(70_000, "level1");
+        wheel.schedule(600_000, "level2");
+        wheel.schedule(5_000, "level0");
+
+        assertThat(wheel.advance(69_000)).containsExactly("level0");
+        assertThat(wheel.advance(70_000)).containsExactly("level1");
+        assertThat(wheel.advance(599_000)).isEmpty();
+        assertThat(wheel.advance(600_000)).containsExactly("level2");
+    }
+
+    @Test
+    void firesOverdueTasksOnNextAdvance() {
+        wheel.advance(10_000);
+        wheel.schedule(5_000, "overdue");
+
+        assertThat(wheel.size()).isEqualTo(1);
+        assertThat(wheel.advance(10_000)).containsExactly("overdue");
+    }
+}
@@ -0,0 +1,90 @@
+package ru.practicum.shareit.utils;
+
+import com.auth0.jwt.exceptions.JWTVerificationException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class JWTUtilTest {
+
+    private JWTUtil jwtUtil;
+
+    @BeforeEach
+    void setUp() {
+        jwtUtil = new JWTUtil();
+        ReflectionTestUtils.setField(jwtUtil, "secret", "test-secret");
+        ReflectionTestUtils.setField(jwtUtil, "cacheSize", 2);
+        jwtUtil.init();
+    }
+
+    @Test
+    void tokenCarriesUserIdAndEmail() {
+        JWTClaims claims = jwtUtil.validateTokenAndRetrieveClaims(jwtUtil.generateToken(7L, "user@example.com"));
+
+        assertThat(claims.getId()).isEqualTo(7L);
+        assertThat(claims.getEmail()).isEqualTo("user@example.com");
+    }
+
+    @Test
+    void tokenWithoutIdIsStillAccepted() {
+        JWTClaims claims = jwtUtil.validateTokenAndRetrieveClaims(jwtUtil.generateToken(null, "user@example.com"));
+
+        assertThat(claims.getId()).isNull();
+        assertThat(claims.getEmail()).isEqualTo("user@example.com");
+    }
+
+    @Test
+    void verifiedTokenIsServedFromCache() {
+        String token = jwtUtil.generateToken(7L, "user@example.com");
+
+        JWTClaims first = jwtUtil.validateTokenAndRetrieveClaims(token);
+        JWTClaims second = jwtUtil.validateTokenAndRetrieveClaims(token);
+
+        assertThat(second).isSameAs(first);
+    }
+
+    @Test
+    void tamperedTokenIsRejected() {
+        String token = jwtUtil.generateToken(7L, "user@example.com");
+        jwtUtil.validateTokenAndRetrieveClaims(token);
+
+        assertThrows(JWTVerificationException.class,
+                () -> jwtUtil.validateTokenAndRetrieveClaims(token.substring(0, token.length() - 2) + "xx"));
+    }
+
+    @Test
+    void cachedSignatureDoesNotVouchForAnotherPayload() {
+        String token = jwtUtil.generateToken(7L, "user@example.com");
+        String other = jwtUtil.generateToken(8L, "other@example.com");
+        jwtUtil.validateTokenAndRetrieveClaims(token);
+
+        String forged = other.substring(0, other.lastIndexOf('.')) + token.substring(token.lastIndexOf('.'));
+
+        assertThrows(JWTVerificationException.class, () -> jwtUtil.validateTokenAndRetrieveClaims(forged));
+    }
+
+    @Test
+    void cacheStaysBounded() {
+        for (long id = 1; id <= 10; id++) {
+            jwtUtil.validateTokenAndRetrieveClaims(jwtUtil.generateToken(id, "user" + id + "@example.com"));
+        }
+
+        assertThat((Map<?, ?>) ReflectionTestUtils.getField(jwtUtil, "verifiedTokens")).hasSizeLessThanOrEqualTo(2);
+    }
+
+    @Test
+    void tokenSignedWithAnotherSecretIsRejected() {
+        JWTUtil other = new JWTUtil();
+        ReflectionTestUtils.setField(other, "secret", "other-secret");
+        ReflectionTestUtils.setField(other, "cacheSize", 2);
+        other.init();
+
+        assertThrows(JWTVerificationException.class,
+                () -> jwtUtil.validateTokenAndRetrieveClaims(other.generateToken(7L, "user@example.com")));
+    }
+}
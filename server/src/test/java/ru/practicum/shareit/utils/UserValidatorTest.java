@@ -10,6 +10,7 @@ import org.springframework.validation.BeanPropertyBindingResult;
 import org.springframework.validation.Errors;
 import ru.practicum.shareit.exception.AlreadyExistException;
 import ru.practicum.shareit.user.repository.UserRepository;
+import ru.practicum.shareit.user.service.RegisteredEmailFilter;
 import ru.practicum.shareit.user.userDto.UserDto;
 
 import java.util.Optional;
@@ -23,6 +24,9 @@ class UserValidatorTest {
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private RegisteredEmailFilter registeredEmailFilter;
+
     @InjectMocks
     private UserValidator userValidator;
 
@@ -54,15 +58,17 @@ class UserValidatorTest {
 
     @Test
     void validate_ShouldNotThrowExceptionWhenEmailIsUnique() {
-        when(userRepository.findByEmail(userDto.getEmail())).thenReturn(Optional.empty());
+        when(registeredEmailFilter.mightBeRegistered(userDto.getEmail())).thenReturn(true);
+        when(userRepository.findByNormalizedEmail(userDto.getEmail())).thenReturn(Optional.empty());
 
         assertDoesNotThrow(() -> userValidator.validate(userDto, errors));
-        verify(userRepository).findByEmail(userDto.getEmail());
+        verify(userRepository).findByNormalizedEmail(userDto.getEmail());
     }
 
     @Test
     void validate_ShouldThrowAlreadyExistExceptionWhenEmailExists() {
-        when(userRepository.findByEmail(userDto.getEmail())).thenReturn(Optional.of(new ru.practicum.shareit.user.model.User()));
+        when(registeredEmailFilter.mightBeRegistered(userDto.getEmail())).thenReturn(true);
+        when(userRepository.findByNormalizedEmail(userDto.getEmail())).thenReturn(Optional.of(new ru.practicum.shareit.user.model.User()));
 
         AlreadyExistException exception = assertThrows(
                 AlreadyExistException.class,
@@ -70,6 +76,14 @@ class UserValidatorTest {
         );
 
         assertEquals("Такой пользователь уже зарегистрирован", exception.getMessage());
-        verify(userRepository).findByEmail(userDto.getEmail());
+        verify(userRepository).findByNormalizedEmail(userDto.getEmail());
+    }
+
+    @Test
+    void validate_ShouldSkipLookupWhenEmailIsDefinitelyNew() {
+        when(registeredEmailFilter.mightBeRegistered(userDto.getEmail())).thenReturn(false);
+
+        assertDoesNotThrow(() -> userValidator.validate(userDto, errors));
+        verifyNoInteractions(userRepository);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,5 @@
+-- Общие строки тестов репозиториев: владелец (1), арендатор (2) и вещь владельца (1).
+-- Строки конкретного сценария тесты добавляют сами.
+insert into users (id, name, email) values (1, 'owner', 'owner@test.ru');
+insert into users (id, name, email) values (2, 'booker', 'booker@test.ru');
+insert into items (id, name, is_available, user_id) values (1, 'drill', true, 1);